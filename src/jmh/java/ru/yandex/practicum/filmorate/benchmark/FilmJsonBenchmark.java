@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.serializer.SerializedJsonCache;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация фильмов в JSON тем же Jackson, что и в приложении: самый популярный фильм
+ * (больше всего лайков) и страница из 100 фильмов из {@link SeededDatabase}.
+ * {@code cachedPopularFilm} - тот же фильм из {@link SerializedJsonCache}, как в {@code GET /films/{id}}.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="FilmJsonBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmJsonBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Film popularFilm;
+    private List<Film> page;
+    private SerializedJsonCache filmJsonCache;
+
+    @Setup
+    public void setUp(SeededDatabase db) {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        popularFilm = db.filmService.getMostPopularFilms(1).get(0);
+        page = db.filmDbStorage.getFilms(0, 100);
+        filmJsonCache = new SerializedJsonCache(objectMapper, 1 << 20);
+        filmJsonCache.serialize(popularFilm.getId(), popularFilm.getVersion(), popularFilm);
+    }
+
+    @Benchmark
+    public byte[] serializePopularFilm() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(popularFilm);
+    }
+
+    @Benchmark
+    public byte[] cachedPopularFilm() {
+        return filmJsonCache.jsonOf(filmJsonCache.get(popularFilm.getId()), popularFilm.getVersion());
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лайк и его снятие через {@link ru.yandex.practicum.filmorate.service.FilmService} на заполненной базе
+ * {@link SeededDatabase}: проверка фильма и пользователя, запись в FILM_LIKES, счетчик и рейтинг.
+ * Сервис собран без Spring, поэтому каждое выражение выполняется в своей транзакции.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="FilmServiceBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilmServiceBenchmark {
+
+    private final Random random = new Random(7);
+
+    @Benchmark
+    public int addAndRemoveLike(SeededDatabase db) {
+        int filmId = db.randomFilmId(random);
+        int likes = db.filmService.addLike(filmId, db.idleUserId).getLikeCount();
+        db.filmService.removeLike(filmId, db.idleUserId);
+        return likes;
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.service.FriendshipGraph;
+import ru.yandex.practicum.filmorate.storage.dao.FriendshipDao;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время подбора возможных друзей для пользователя с {@code friends} друзьями,
+ * у каждого из которых столько же друзей среди {@code users} пользователей.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="FriendSuggestionsBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FriendSuggestionsBenchmark {
+
+    @Param({"100", "1000", "3000"})
+    private int friends;
+
+    @Param({"200000"})
+    private int users;
+
+    private FriendshipGraph friendshipGraph;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        Map<Integer, List<Integer>> friendIds = new HashMap<>();
+        List<Integer> userFriends = randomIds(random, friends);
+        friendIds.put(1, userFriends);
+        for (Integer friendId : userFriends) {
+            friendIds.put(friendId, randomIds(random, friends));
+        }
+        FriendshipDao friendshipDao = new FriendshipDao(null) {
+            @Override
+            public Map<Integer, List<Integer>> findAllFriendIds() {
+                return friendIds;
+            }
+        };
+        friendshipGraph = new FriendshipGraph(friendshipDao);
+        friendshipGraph.load();
+    }
+
+    @Benchmark
+    public int[] suggestions() {
+        return friendshipGraph.getSuggestedFriendIds(1, 10);
+    }
+
+    private List<Integer> randomIds(Random random, int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(random.nextInt(users) + 2);
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.dao.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDao;
+import ru.yandex.practicum.filmorate.storage.dao.MpaDao;
+import ru.yandex.practicum.filmorate.storage.dao.UserDbStorage;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение вставки через новый {@link SimpleJdbcInsert} на каждый вызов (как было раньше)
+ * и через заранее собранные выражения в {@link FilmDbStorage} и {@link UserDbStorage}.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="InsertBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertBenchmark {
+
+    private JdbcTemplate jdbcTemplate;
+    private FilmDbStorage filmDbStorage;
+    private UserDbStorage userDbStorage;
+    private Mpa mpa;
+
+    @Setup
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:insert-benchmark;DB_CLOSE_DELAY=-1");
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"),
+                new ClassPathResource("migration/V2__friendship_pk_and_indexes.sql"),
+                new ClassPathResource("migration/V3__version_columns.sql"), new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        ReferenceDataRegistry referenceDataRegistry = new ReferenceDataRegistry(new MpaDao(jdbcTemplate),
+                new GenreDao(jdbcTemplate));
+        referenceDataRegistry.reload();
+        filmDbStorage = new FilmDbStorage(jdbcTemplate, referenceDataRegistry);
+        userDbStorage = new UserDbStorage(jdbcTemplate);
+        mpa = referenceDataRegistry.getMpa(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Benchmark
+    public int filmSimpleJdbcInsert() {
+        SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("film")
+                .usingColumns("name", "description", "mpa_id", "release_date", "duration")
+                .usingGeneratedKeyColumns("id");
+        return insert.executeAndReturnKey(newFilm().toMap()).intValue();
+    }
+
+    @Benchmark
+    public int filmCompiledInsert() {
+        return filmDbStorage.addFilm(newFilm()).getId();
+    }
+
+    @Benchmark
+    public int userSimpleJdbcInsert() {
+        SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("user_account")
+                .usingGeneratedKeyColumns("id");
+        return insert.executeAndReturnKey(newUser().toMap()).intValue();
+    }
+
+    @Benchmark
+    public int userCompiledInsert() {
+        return userDbStorage.createUser(newUser()).getId();
+    }
+
+    private Film newFilm() {
+        return new Film("name", "description", mpa, "2000-01-01", 100);
+    }
+
+    private User newUser() {
+        return new User("user@email.ru", "login", "name", "1990-01-01");
+    }
+}
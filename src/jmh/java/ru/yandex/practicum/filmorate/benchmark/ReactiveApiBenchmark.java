@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Одни и те же запросы к MVC ({@code stack=servlet}) и к реактивному API ({@code stack=reactive})
+ * на приложении с H2 в памяти и 16 потоками Tomcat: 64 клиента, 2000 фильмов, у пользователя 1 - 500 друзей.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="ReactiveApiBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(64)
+@Fork(1)
+public class ReactiveApiBenchmark {
+
+    private static final int FILMS = 2000;
+    private static final int FRIENDS = 500;
+
+    @Param({"servlet", "reactive"})
+    public String stack;
+
+    @Param({"/films/popular?count=10", "/films/1", "/films", "/users/1/friends", "/users/1/friends/common/2"})
+    public String path;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI uri;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                // аргументами командной строки: свойства builder-а уступают application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:reactive;DB_CLOSE_DELAY=-1",
+                        "--server.tomcat.threads.max=16",
+                        "--logging.level.root=warn",
+                        "--logging.level.ru.yandex.practicum.filmorate=warn",
+                        "--filmorate.reactive.enabled=true");
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        String base = "http://localhost:" + port;
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        uri = URI.create(base + (stack.equals("reactive") ? "/reactive" : "") + path);
+
+        for (int i = 1; i <= FILMS; i++) {
+            send(HttpRequest.newBuilder(URI.create(base + "/films"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"film" + i + "\",\"description\":\"d\"," +
+                            "\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":" + (1 + i % 5) + "}," +
+                            "\"genres\":[{\"id\":" + (1 + i % 6) + "}]}"))
+                    .build());
+        }
+        for (int i = 1; i <= FRIENDS + 2; i++) {
+            send(HttpRequest.newBuilder(URI.create(base + "/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"email\":\"user" + i + "@mail.ru\"," +
+                            "\"login\":\"user" + i + "\",\"name\":\"User\",\"birthday\":\"1990-01-01\"}"))
+                    .build());
+        }
+        for (int i = 3; i <= FRIENDS + 2; i++) {
+            send(HttpRequest.newBuilder(URI.create(base + "/users/1/friends/" + i))
+                    .PUT(HttpRequest.BodyPublishers.noBody()).build());
+            if (i % 2 == 0) {
+                send(HttpRequest.newBuilder(URI.create(base + "/users/2/friends/" + i))
+                        .PUT(HttpRequest.BodyPublishers.noBody()).build());
+            }
+            send(HttpRequest.newBuilder(URI.create(base + "/films/" + (i % 50 + 1) + "/like/" + i))
+                    .PUT(HttpRequest.BodyPublishers.noBody()).build());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int request() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(uri).build());
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(request.uri() + " ответил " + response.statusCode());
+        }
+        return response.body().length;
+    }
+}
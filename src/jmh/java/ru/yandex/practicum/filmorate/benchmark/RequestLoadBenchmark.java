@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.utils.VirtualThreads;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузка на запущенное приложение по HTTP при медленной базе: каждое соединение из пула
+ * удерживается на {@code queryDelayMs} дольше, как при всплеске медленных запросов.
+ * 256 потоков клиента запрашивают {@code GET /films/popular}, которому нужна база, и еще 4 - {@code GET /genres},
+ * который отвечает из памяти. С платформенными потоками медленные запросы занимают все 200 потоков Tomcat
+ * и быстрые ждут в очереди; с {@code virtualThreads=true} быстрые отвечают сразу, а медленные ограничены
+ * только пулом соединений. Для {@code virtualThreads=true} нужна JDK 21, на старой JDK этот вариант завершится ошибкой.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="RequestLoadBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class RequestLoadBenchmark {
+
+    private static final int FILMS = 100;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"20"})
+    public long queryDelayMs;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI popularFilms;
+    private URI genres;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, InterruptedException {
+        if (virtualThreads) {
+            VirtualThreads.requireSupported();
+        }
+        context = new SpringApplicationBuilder(FilmorateApplication.class, SlowDatabaseConfig.class)
+                // аргументами командной строки: свойства builder-а уступают application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.hikari.maximum-pool-size=10",
+                        "--server.tomcat.threads.max=200",
+                        "--logging.level.root=warn",
+                        "--logging.level.ru.yandex.practicum.filmorate=warn",
+                        "--filmorate.benchmark.query-delay-ms=" + queryDelayMs,
+                        "--filmorate.virtual-threads.enabled=" + virtualThreads);
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        popularFilms = URI.create("http://localhost:" + port + "/films/popular?count=10");
+        genres = URI.create("http://localhost:" + port + "/genres");
+
+        URI films = URI.create("http://localhost:" + port + "/films");
+        for (int i = 0; i < FILMS; i++) {
+            HttpRequest request = HttpRequest.newBuilder(films)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"name\":\"film" + i + "\",\"description\":\"d\"," +
+                            "\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":1}}"))
+                    .build();
+            send(request);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(256)
+    public int slowRequest() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(popularFilms).build());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(4)
+    public int fastRequest() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(genres).build());
+    }
+
+    private int send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException(request.uri() + " ответил " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    /**
+     * Задерживает каждое полученное из пула соединение: запрос держит соединение дольше, как медленный SQL.
+     * Без {@code @Configuration}, чтобы сканирование компонентов не подхватило ее в тестах профиля benchmark.
+     */
+    public static class SlowDatabaseConfig {
+
+        @Bean
+        public static BeanPostProcessor slowDataSource(@Value("${filmorate.benchmark.query-delay-ms}") long delayMs) {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource && !(bean instanceof SlowDataSource)
+                            ? new SlowDataSource((DataSource) bean, delayMs)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    private static class SlowDataSource extends DelegatingDataSource {
+
+        private final long delayMs;
+
+        SlowDataSource(DataSource dataSource, long delayMs) {
+            super(dataSource);
+            this.delayMs = delayMs;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return connection;
+        }
+    }
+}
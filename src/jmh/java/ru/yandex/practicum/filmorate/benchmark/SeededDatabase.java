@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.yandex.practicum.filmorate.serializer.SerializedJsonCache;
+import ru.yandex.practicum.filmorate.service.*;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.dao.*;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Встроенная H2 со схемой приложения, заполненная одинаковыми от запуска к запуску данными:
+ * {@code films} фильмов и столько же пользователей, у каждого пользователя {@link #LIKES_PER_USER} лайков
+ * (популярные фильмы лайкают чаще) и {@link #FRIENDS_PER_USER} друзей, у каждого фильма два жанра.
+ * Общее состояние бенчмарков хранилища, сервиса и сериализации; размер данных задается параметром {@code films}.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+
+    public static final int LIKES_PER_USER = 10;
+    public static final int FRIENDS_PER_USER = 20;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000", "10000", "50000"})
+    public int films;
+
+    public JdbcTemplate jdbcTemplate;
+    public ReferenceDataRegistry referenceDataRegistry;
+    public FilmDbStorage filmDbStorage;
+    public UserDbStorage userDbStorage;
+    public FilmLikesDao filmLikesDao;
+    public GenreDao genreDao;
+    public FriendshipDao friendshipDao;
+    public FilmService filmService;
+    // пользователь без лайков для бенчмарков записи
+    public int idleUserId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:seeded-" + films + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"),
+                new ClassPathResource("migration/V2__friendship_pk_and_indexes.sql"),
+                new ClassPathResource("migration/V3__version_columns.sql"), new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        long start = System.nanoTime();
+        seed(new Random(42));
+        System.out.printf("Данные для films=%d заполнены за %d мс%n", films, (System.nanoTime() - start) / 1_000_000);
+
+        referenceDataRegistry = new ReferenceDataRegistry(new MpaDao(jdbcTemplate), new GenreDao(jdbcTemplate));
+        referenceDataRegistry.reload();
+        filmLikesDao = new FilmLikesDao(jdbcTemplate);
+        genreDao = new GenreDao(jdbcTemplate);
+        friendshipDao = new FriendshipDao(jdbcTemplate);
+        filmDbStorage = new FilmDbStorage(jdbcTemplate, referenceDataRegistry);
+        userDbStorage = new UserDbStorage(jdbcTemplate);
+
+        FriendshipGraph friendshipGraph = new FriendshipGraph(friendshipDao);
+        friendshipGraph.load();
+        PopularityLeaderboard leaderboard = new PopularityLeaderboard(filmLikesDao);
+        leaderboard.load();
+        LikeWriteBuffer likeWriteBuffer = new LikeWriteBuffer(filmLikesDao, leaderboard,
+                new DataSourceTransactionManager(dataSource), Runnable::run, false, 0, "");
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        filmService = new FilmService(filmDbStorage, new UserService(userDbStorage, friendshipDao, friendshipGraph,
+                new SerializedJsonCache(objectMapper, 0)), filmLikesDao, genreDao, leaderboard, referenceDataRegistry,
+                new FilmRecommendationIndex(filmLikesDao, 20), likeWriteBuffer, new FilmSearchIndex(filmDbStorage),
+                new SerializedJsonCache(objectMapper, 0));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    public int randomFilmId(Random random) {
+        return random.nextInt(films) + 1;
+    }
+
+    public int randomUserId(Random random) {
+        return random.nextInt(films) + 1;
+    }
+
+    private void seed(Random random) {
+        int users = films;
+        Date releaseDate = Date.valueOf(LocalDate.of(2000, 1, 1));
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= films; i++) {
+            rows.add(new Object[]{"film" + i, "description of film " + i, 1 + i % 5, releaseDate, 90 + i % 60});
+            flushIfFull("INSERT INTO FILM (NAME, DESCRIPTION, MPA_ID, RELEASE_DATE, DURATION) VALUES (?, ?, ?, ?, ?)",
+                    rows, i == films);
+        }
+        for (int i = 1; i <= films; i++) {
+            rows.add(new Object[]{i, 1 + i % 6});
+            // сдвиг от 1 до 5 по модулю 6 дает второй жанр, отличный от первого
+            rows.add(new Object[]{i, 1 + (i + 1 + (i / 6) % 5) % 6});
+            flushIfFull("INSERT INTO FILM_GENRE (FILM_ID, GENRE_ID) VALUES (?, ?)", rows, i == films);
+        }
+        for (int i = 1; i <= users + 1; i++) {
+            rows.add(new Object[]{"user" + i + "@mail.ru", "user" + i, "User " + i, releaseDate});
+            flushIfFull("INSERT INTO USER_ACCOUNT (EMAIL, LOGIN, NAME, BIRTHDAY) VALUES (?, ?, ?, ?)",
+                    rows, i == users + 1);
+        }
+        idleUserId = users + 1;
+
+        Set<Integer> picked = new HashSet<>();
+        for (int userId = 1; userId <= users; userId++) {
+            picked.clear();
+            while (picked.size() < Math.min(LIKES_PER_USER, films)) {
+                // квадрат равномерного числа смещает лайки к фильмам с маленькими id
+                double r = random.nextDouble();
+                picked.add(1 + (int) (films * r * r));
+            }
+            for (Integer filmId : picked) {
+                rows.add(new Object[]{filmId, userId});
+            }
+            flushIfFull("INSERT INTO FILM_LIKES (FILM_ID, USER_ID) VALUES (?, ?)", rows, userId == users);
+        }
+        for (int userId = 1; userId <= users; userId++) {
+            picked.clear();
+            while (picked.size() < Math.min(FRIENDS_PER_USER, users - 1)) {
+                int friendId = random.nextInt(users) + 1;
+                if (friendId != userId) {
+                    picked.add(friendId);
+                }
+            }
+            for (Integer friendId : picked) {
+                rows.add(new Object[]{userId, friendId, false});
+            }
+            flushIfFull("INSERT INTO FRIENDSHIP (USER_ID, FRIEND_ID, FRIEND_STATUS_CONFIRM) VALUES (?, ?, ?)",
+                    rows, userId == users);
+        }
+        new FilmLikesDao(jdbcTemplate).reconcileLikeCounts();
+    }
+
+    private void flushIfFull(String sql, List<Object[]> rows, boolean last) {
+        if (rows.size() >= BATCH_SIZE || (last && !rows.isEmpty())) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.mapper.FilmMapper;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтения из хранилища на заполненной базе {@link SeededDatabase}: маппинг строк FILM,
+ * страница фильмов с жанрами и лайками, популярные фильмы и общие друзья.
+ * Запуск: mvn -Pbenchmark test-compile exec:exec -Djmh.args="StorageBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final Random random = new Random(7);
+    private FilmMapper filmMapper;
+
+    @Setup
+    public void setUp(SeededDatabase db) {
+        filmMapper = new FilmMapper(db.referenceDataRegistry, db.genreDao, db.filmLikesDao);
+    }
+
+    @Benchmark
+    public List<Film> mapFilmRows(SeededDatabase db) {
+        return db.jdbcTemplate.query("SELECT ID, NAME, DESCRIPTION, RELEASE_DATE, DURATION, MPA_ID FROM FILM " +
+                "WHERE ID > ? ORDER BY ID LIMIT ?", filmMapper, randomOffset(db), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Film> getFilmsPage(SeededDatabase db) {
+        return db.filmDbStorage.getFilms(randomOffset(db), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Film> getMostPopularFilms(SeededDatabase db) {
+        return db.filmService.getMostPopularFilms(10);
+    }
+
+    @Benchmark
+    public List<User> getMutualFriends(SeededDatabase db) {
+        return db.friendshipDao.getMutualFriends(db.randomUserId(random), db.randomUserId(random));
+    }
+
+    private int randomOffset(SeededDatabase db) {
+        return random.nextInt(Math.max(1, db.films - PAGE_SIZE));
+    }
+}
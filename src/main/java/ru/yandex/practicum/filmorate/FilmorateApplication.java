@@ -2,11 +2,22 @@ package ru.yandex.practicum.filmorate;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import ru.yandex.practicum.filmorate.storage.bulk.BulkLoadCommand;
 
-@SpringBootApplication
+import java.util.Arrays;
+
+// R2DBC настраивается вручную в ReactiveApiConfig: автонастроенная ConnectionFactory отключила бы DataSource
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@EnableScheduling
 public class FilmorateApplication {
 	public static void main(String[] args) {
-		SpringApplication.run(FilmorateApplication.class, args);
+		if (args.length > 0 && BulkLoadCommand.NAME.equals(args[0])) {
+			System.exit(BulkLoadCommand.run(Arrays.copyOfRange(args, 1, args.length)));
+		} else {
+			SpringApplication.run(FilmorateApplication.class, args);
+		}
 	}
 
 }
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.serializer.SerializedJsonCache;
+
+/**
+ * Кеши готового JSON фильмов и пользователей. Лимит {@code filmorate.json-cache.max-bytes} действует на каждый кеш.
+ * Заполненность и попадания видны в метриках {@code filmorate.json.cache.*} с тегом {@code cache}.
+ */
+@Configuration
+public class JsonCacheConfig {
+
+    @Bean
+    public SerializedJsonCache filmJsonCache(ObjectMapper objectMapper, MeterRegistry registry,
+                                             @Value("${filmorate.json-cache.max-bytes:16777216}") long maxBytes) {
+        return register(new SerializedJsonCache(objectMapper, maxBytes), "films", registry);
+    }
+
+    @Bean
+    public SerializedJsonCache userJsonCache(ObjectMapper objectMapper, MeterRegistry registry,
+                                             @Value("${filmorate.json-cache.max-bytes:16777216}") long maxBytes) {
+        return register(new SerializedJsonCache(objectMapper, maxBytes), "users", registry);
+    }
+
+    private static SerializedJsonCache register(SerializedJsonCache cache, String name, MeterRegistry registry) {
+        Gauge.builder("filmorate.json.cache.bytes", cache, SerializedJsonCache::getBytes)
+                .tag("cache", name)
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("filmorate.json.cache.size", cache, SerializedJsonCache::getSize)
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("filmorate.json.cache.requests", cache, SerializedJsonCache::getHits)
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("filmorate.json.cache.requests", cache, SerializedJsonCache::getMisses)
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        return cache;
+    }
+}
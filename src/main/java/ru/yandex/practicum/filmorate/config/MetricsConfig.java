@@ -0,0 +1,65 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import ru.yandex.practicum.filmorate.monitoring.QueryCountingDataSource;
+
+import javax.sql.DataSource;
+import java.util.Set;
+
+/**
+ * Метрики приложения. Запросы к контроллерам, пул соединений и JVM измеряет Spring Boot Actuator,
+ * время методов DAO - {@link TimedAspect} по аннотации {@code @Timed("filmorate.dao")}.
+ * Все метрики отдаются в формате Prometheus на /actuator/prometheus.
+ * Источник данных оборачивается в {@link QueryCountingDataSource} для подсчета SQL в каждом запросе.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // для этих запросов Prometheus получает гистограмму и может считать любые перцентили
+    private static final Set<String> HISTOGRAM_URIS = Set.of(
+            "/films/popular",
+            "/users/{id}/friends",
+            "/users/{id}/friends/common/{otherId}",
+            "/users/{id}/suggestions");
+
+    @Bean
+    public static BeanPostProcessor queryCountingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource && !(bean instanceof QueryCountingDataSource)
+                        ? new QueryCountingDataSource((DataSource) bean)
+                        : bean;
+            }
+        };
+    }
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public MeterFilter percentileHistograms() {
+        return new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                if (id.getName().equals("http.server.requests") && HISTOGRAM_URIS.contains(id.getTag("uri"))) {
+                    return DistributionStatisticConfig.builder()
+                            .percentilesHistogram(true)
+                            .build()
+                            .merge(config);
+                }
+                return config;
+            }
+        };
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.ServletHttpHandlerAdapter;
+import org.springframework.jdbc.datasource.AbstractDriverBasedDataSource;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.controller.reactive.ReactiveApiRouter;
+import ru.yandex.practicum.filmorate.controller.reactive.ReactiveFilmHandler;
+import ru.yandex.practicum.filmorate.controller.reactive.ReactiveUserHandler;
+import ru.yandex.practicum.filmorate.serializer.JsonChunkEncoder;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveFilmStorage;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveFriendshipDao;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveUserStorage;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Реактивный API для чтения: {@code /reactive/films}, {@code /reactive/films/{id}}, {@code /reactive/films/popular},
+ * {@code /reactive/users/{id}/friends} и {@code /reactive/users/{id}/friends/common/{otherId}}.
+ * Включается свойством {@code filmorate.reactive.enabled}. Маршруты WebFlux работают в том же Tomcat через
+ * неблокирующий ввод-вывод Servlet 3.1: потоки Tomcat не ждут ни базу, ни медленного клиента, а большие списки
+ * читаются из базы пачками по мере отправки.
+ * База та же H2, что и у JDBC, через R2DBC с собственным пулом {@code filmorate.reactive.pool-size}.
+ * Драйвер r2dbc-h2 выполняет запрос в потоке подписчика, поэтому запросы идут в отдельный планировщик
+ * того же размера, что и пул.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.reactive.enabled", havingValue = "true")
+public class ReactiveApiConfig {
+
+    private static final String H2_URL_PREFIX = "jdbc:h2:";
+
+    // не бин: бин ConnectionFactory отключил бы автонастройку DataSource для JDBC
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(DataSource dataSource,
+                                                 @Value("${filmorate.reactive.pool-size:10}") int poolSize)
+            throws SQLException {
+        // адрес берется у открытого DataSource, чтобы R2DBC гарантированно попал в ту же базу, в том числе в тестах
+        String url;
+        String username;
+        try (Connection connection = dataSource.getConnection()) {
+            url = connection.getMetaData().getURL();
+            username = connection.getMetaData().getUserName();
+        }
+        if (!url.startsWith(H2_URL_PREFIX)) {
+            throw new IllegalStateException("Реактивный API работает только со встроенной H2, а база: " + url);
+        }
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+                .url(url.substring(H2_URL_PREFIX.length()))
+                .username(username)
+                .password(password(dataSource))
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(new H2ConnectionFactory(configuration))
+                .maxSize(poolSize)
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler reactiveDbScheduler(@Value("${filmorate.reactive.pool-size:10}") int poolSize) {
+        return Schedulers.newParallel("reactive-db", poolSize);
+    }
+
+    @Bean
+    public ServletRegistrationBean<ServletHttpHandlerAdapter> reactiveApi(DatabaseClient reactiveDatabaseClient,
+                                                                          Scheduler reactiveDbScheduler,
+                                                                          ReferenceDataRegistry referenceDataRegistry,
+                                                                          ObjectMapper objectMapper,
+                                                                          @Value("${filmorate.reactive.chunk-size:500}")
+                                                                          int chunkSize) {
+        JsonChunkEncoder encoder = new JsonChunkEncoder(objectMapper);
+        ReactiveFilmHandler filmHandler = new ReactiveFilmHandler(
+                new ReactiveFilmStorage(reactiveDatabaseClient, referenceDataRegistry, reactiveDbScheduler),
+                encoder, chunkSize);
+        ReactiveUserHandler userHandler = new ReactiveUserHandler(
+                new ReactiveUserStorage(reactiveDatabaseClient, reactiveDbScheduler),
+                new ReactiveFriendshipDao(reactiveDatabaseClient, reactiveDbScheduler),
+                encoder, chunkSize);
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        ServletHttpHandlerAdapter servlet = new ServletHttpHandlerAdapter(
+                RouterFunctions.toHttpHandler(ReactiveApiRouter.routes(filmHandler, userHandler), strategies));
+        ServletRegistrationBean<ServletHttpHandlerAdapter> registration =
+                new ServletRegistrationBean<>(servlet, "/reactive/*");
+        registration.setName("reactiveApi");
+        registration.setAsyncSupported(true);
+        return registration;
+    }
+
+    private static String password(DataSource dataSource) throws SQLException {
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            return dataSource.unwrap(HikariDataSource.class).getPassword();
+        }
+        if (dataSource.isWrapperFor(AbstractDriverBasedDataSource.class)) {
+            return dataSource.unwrap(AbstractDriverBasedDataSource.class).getPassword();
+        }
+        throw new IllegalStateException("Не удалось узнать пароль базы у " + dataSource.getClass().getName());
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import ru.yandex.practicum.filmorate.utils.VirtualThreads;
+
+/**
+ * Режим виртуальных потоков, включается свойством {@code filmorate.virtual-threads.enabled} и требует JDK 21.
+ * Запросы Tomcat, асинхронные ответы MVC, сброс буфера лайков и задачи {@code @Scheduled} выполняются
+ * в виртуальных потоках, поэтому запрос, ждущий базу, не занимает поток ОС и лимит {@code server.tomcat.threads.max}
+ * больше не действует. Одновременную работу с базой ограничивает только пул соединений
+ * ({@code spring.datasource.hikari.maximum-pool-size}): остальные запросы ждут соединение, не занимая потоков.
+ */
+@Configuration
+@ConditionalOnProperty(name = "filmorate.virtual-threads.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadsConfig {
+
+    public VirtualThreadsConfig(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxPoolSize) {
+        // на старой JDK приложение не должно молча стартовать на платформенных потоках
+        VirtualThreads.requireSupported();
+        log.info("Запросы выполняются в виртуальных потоках, одновременно с базой работают не больше {} из них",
+                maxPoolSize);
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newExecutor("http-virtual-"));
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(VirtualThreads.newExecutor("task-virtual-"));
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${spring.task.scheduling.pool.size:1}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadFactory(VirtualThreads.newThreadFactory("scheduling-virtual-"));
+        return scheduler;
+    }
+}
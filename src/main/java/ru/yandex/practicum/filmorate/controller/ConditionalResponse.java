@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Duration;
+
+/**
+ * Ответы с ETag по номеру версии. Версия проверяется до загрузки сущности,
+ * поэтому совпавший {@code If-None-Match} стоит одного запроса к базе.
+ */
+final class ConditionalResponse {
+
+    // справочники меняются только вместе с data.sql, после истечения срока клиент сверяет ETag
+    private static final CacheControl REFERENCE_DATA_CACHE = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+
+    private ConditionalResponse() {
+    }
+
+    static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Совпадает ли текущая версия с одним из ETag заголовка {@code If-None-Match}.
+     * Как требует RFC 9110, для GET ETag сравниваются без учета признака слабого {@code W/}.
+     */
+    static boolean isNotModified(String ifNoneMatch, Integer version) {
+        if (ifNoneMatch == null || version == null) {
+            return false;
+        }
+        String etag = etag(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if (trimmed.equals("*") || trimmed.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static <T> ResponseEntity<T> notModified(int version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag(version)).build();
+    }
+
+    /**
+     * Ответ 200 с готовым JSON и ETag; без ETag, если версия неизвестна.
+     */
+    static ResponseEntity<byte[]> json(byte[] json, Integer version) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (version != null) {
+            response.eTag(etag(version));
+        }
+        return response.body(json);
+    }
+
+    /**
+     * Ответ со справочником: кешируется клиентом и прокси, по истечении срока проверяется по ETag.
+     */
+    static <T> ResponseEntity<T> referenceData(T body, long version) {
+        return ResponseEntity.ok()
+                .cacheControl(REFERENCE_DATA_CACHE)
+                .eTag(etag(version))
+                .body(body);
+    }
+}
@@ -1,8 +1,19 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationResult;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.serializer.NdjsonWriter;
+import ru.yandex.practicum.filmorate.serializer.SerializedJsonCache;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import javax.validation.Valid;
@@ -13,10 +24,15 @@ import java.util.List;
 public class FilmController {
 
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final SerializedJsonCache filmJsonCache;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper,
+                          @Qualifier("filmJsonCache") SerializedJsonCache filmJsonCache) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.filmJsonCache = filmJsonCache;
     }
 
     @PostMapping
@@ -24,19 +40,62 @@ public class FilmController {
         return filmService.addFilm(film);
     }
 
+    @PostMapping("/likes:batch")
+    public List<LikeOperationResult> applyLikes(@RequestBody List<LikeOperation> operations) {
+        return filmService.applyLikes(operations);
+    }
+
     @PutMapping
     public Film updateFilm(@Valid @RequestBody Film film) {
         return filmService.updateFilm(film);
     }
 
     @GetMapping
-    public List<Film> findAll() {
-        return filmService.findAll();
+    public ResponseEntity<List<Film>> findAll(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) Integer after) {
+        if (limit == null && after == null) {
+            return ResponseEntity.ok(filmService.findAll());
+        }
+        return PageResponse.of(filmService.findPage(after == null ? 0 : after,
+                limit == null ? Page.DEFAULT_LIMIT : limit));
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+                filmService.exportFilms(writer::writeChunk);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE))
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam(defaultValue = "") String q,
+                                  @RequestParam(defaultValue = "10") int count) {
+        return filmService.searchFilms(q, count);
     }
 
     @GetMapping("/{id}")
-    public Film findFilmById(@PathVariable int id) {
-        return filmService.findFilmById(id);
+    public ResponseEntity<byte[]> findFilmById(@PathVariable int id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
+        // версию стоит читать, только если ее есть с чем сравнить: с If-None-Match или с JSON в кеше
+        SerializedJsonCache.Entry cached = filmJsonCache.get(id);
+        if (ifNoneMatch != null || cached != null) {
+            Integer version = filmService.getFilmVersion(id);
+            if (ConditionalResponse.isNotModified(ifNoneMatch, version)) {
+                return ConditionalResponse.notModified(version);
+            }
+            byte[] json = filmJsonCache.jsonOf(cached, version);
+            if (json != null) {
+                return ConditionalResponse.json(json, version);
+            }
+        }
+        Film film = filmService.findFilmById(id);
+        return ConditionalResponse.json(filmJsonCache.serialize(id, film.getVersion(), film), film.getVersion());
     }
 
     @PutMapping("/{id}/like/{userId}")
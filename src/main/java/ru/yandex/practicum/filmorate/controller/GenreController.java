@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -20,12 +21,12 @@ public class GenreController {
     }
 
     @GetMapping()
-    public Collection<Genre> findAll() {
-        return genreService.findAll();
+    public ResponseEntity<Collection<Genre>> findAll() {
+        return ConditionalResponse.referenceData(genreService.findAll(), genreService.getVersion());
     }
 
     @GetMapping("/{id}")
-    public Genre findGenreById(@PathVariable int id) {
-        return genreService.findGenreById(id);
+    public ResponseEntity<Genre> findGenreById(@PathVariable int id) {
+        return ConditionalResponse.referenceData(genreService.findGenreById(id), genreService.getVersion());
     }
 }
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -20,12 +21,12 @@ public class MpaController {
     }
 
     @GetMapping()
-    public Collection<Mpa> findAll() {
-        return mpaService.findAll();
+    public ResponseEntity<Collection<Mpa>> findAll() {
+        return ConditionalResponse.referenceData(mpaService.findAll(), mpaService.getVersion());
     }
 
     @GetMapping("/{id}")
-    public Mpa findMpaById(@PathVariable int id) {
-        return mpaService.findMpaById(id);
+    public ResponseEntity<Mpa> findMpaById(@PathVariable int id) {
+        return ConditionalResponse.referenceData(mpaService.findMpaById(id), mpaService.getVersion());
     }
 }
@@ -1,9 +1,20 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.serializer.NdjsonWriter;
+import ru.yandex.practicum.filmorate.serializer.SerializedJsonCache;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import javax.validation.Valid;
@@ -14,10 +25,17 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final ObjectMapper objectMapper;
+    private final SerializedJsonCache userJsonCache;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FilmService filmService, ObjectMapper objectMapper,
+                          @Qualifier("userJsonCache") SerializedJsonCache userJsonCache) {
         this.userService = userService;
+        this.filmService = filmService;
+        this.objectMapper = objectMapper;
+        this.userJsonCache = userJsonCache;
     }
 
     @PostMapping
@@ -31,13 +49,44 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> findAll() {
-        return userService.findAll();
+    public ResponseEntity<List<User>> findAll(@RequestParam(required = false) Integer limit,
+                                              @RequestParam(required = false) Integer after) {
+        if (limit == null && after == null) {
+            return ResponseEntity.ok(userService.findAll());
+        }
+        return PageResponse.of(userService.findPage(after == null ? 0 : after,
+                limit == null ? Page.DEFAULT_LIMIT : limit));
+    }
+
+    @GetMapping(value = "/export", produces = NdjsonWriter.MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(objectMapper, out)) {
+                userService.exportUsers(writer::writeChunk);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NdjsonWriter.MEDIA_TYPE))
+                .body(body);
     }
 
     @GetMapping("/{id}")
-    public User findUserById(@PathVariable int id) {
-        return userService.findUserById(id);
+    public ResponseEntity<byte[]> findUserById(@PathVariable int id,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                               String ifNoneMatch) {
+        SerializedJsonCache.Entry cached = userJsonCache.get(id);
+        if (ifNoneMatch != null || cached != null) {
+            int version = userService.getUserVersion(id);
+            if (ConditionalResponse.isNotModified(ifNoneMatch, version)) {
+                return ConditionalResponse.notModified(version);
+            }
+            byte[] json = userJsonCache.jsonOf(cached, version);
+            if (json != null) {
+                return ConditionalResponse.json(json, version);
+            }
+        }
+        User user = userService.findUserById(id);
+        return ConditionalResponse.json(userJsonCache.serialize(id, user.getVersion(), user), user.getVersion());
     }
 
     @PutMapping("/{id}/friends/{friendId}")
@@ -51,12 +100,28 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> findFriends(@PathVariable int id) {
-        return userService.getFriends(id);
+    public ResponseEntity<List<User>> findFriends(@PathVariable int id,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestParam(required = false) Integer after) {
+        if (limit == null && after == null) {
+            return ResponseEntity.ok(userService.getFriends(id));
+        }
+        return PageResponse.of(userService.getFriends(id, after == null ? 0 : after,
+                limit == null ? Page.DEFAULT_LIMIT : limit));
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
     public List<User> findMutualFriends(@PathVariable int id, @PathVariable int otherId) {
         return userService.getMutualFriends(id, otherId);
     }
+
+    @GetMapping("/{id}/suggestions")
+    public List<User> findSuggestedFriends(@PathVariable int id, @RequestParam(defaultValue = "10") int count) {
+        return userService.getSuggestedFriends(id, count);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> findRecommendations(@PathVariable int id, @RequestParam(defaultValue = "10") int count) {
+        return filmService.getRecommendations(id, count);
+    }
 }
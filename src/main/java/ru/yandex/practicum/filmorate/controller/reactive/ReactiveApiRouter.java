@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.controller.reactive;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+
+/**
+ * Маршруты реактивного API. Пути те же, что в MVC, префикс {@code /reactive} добавляет регистрация сервлета.
+ */
+public final class ReactiveApiRouter {
+
+    private ReactiveApiRouter() {
+    }
+
+    public static RouterFunction<ServerResponse> routes(ReactiveFilmHandler filmHandler,
+                                                        ReactiveUserHandler userHandler) {
+        return RouterFunctions.route()
+                .GET("/films", deferred(filmHandler::findAll))
+                .GET("/films/popular", deferred(filmHandler::findMostPopularFilms))
+                .GET("/films/{id}", deferred(filmHandler::findFilmById))
+                .GET("/users/{id}/friends", deferred(userHandler::findFriends))
+                .GET("/users/{id}/friends/common/{otherId}", deferred(userHandler::findMutualFriends))
+                .onError(FilmNotFoundException.class, (e, request) -> ReactiveResponses.error(HttpStatus.NOT_FOUND, e))
+                .onError(UserNotFoundException.class, (e, request) -> ReactiveResponses.error(HttpStatus.NOT_FOUND, e))
+                .onError(NumberFormatException.class,
+                        (e, request) -> ReactiveResponses.error(HttpStatus.BAD_REQUEST, e))
+                .build();
+    }
+
+    // разбор параметров бросает исключение до Mono, а onError ловит только ошибки внутри него
+    private static HandlerFunction<ServerResponse> deferred(HandlerFunction<ServerResponse> handler) {
+        return request -> Mono.defer(() -> handler.handle(request));
+    }
+}
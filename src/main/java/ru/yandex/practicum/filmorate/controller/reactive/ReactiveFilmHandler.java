@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.controller.reactive;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.serializer.JsonChunkEncoder;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveFilmStorage;
+
+/**
+ * Чтение фильмов в реактивном API, ответы те же, что у {@code FilmController}.
+ */
+public class ReactiveFilmHandler {
+
+    private final ReactiveFilmStorage filmStorage;
+    private final JsonChunkEncoder encoder;
+    private final int chunkSize;
+
+    public ReactiveFilmHandler(ReactiveFilmStorage filmStorage, JsonChunkEncoder encoder, int chunkSize) {
+        this.filmStorage = filmStorage;
+        this.encoder = encoder;
+        this.chunkSize = chunkSize;
+    }
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return ReactiveResponses.list(request, filmStorage.streamFilms(chunkSize), encoder);
+    }
+
+    public Mono<ServerResponse> findFilmById(ServerRequest request) {
+        int id = ReactiveResponses.pathId(request, "id");
+        return filmStorage.getFilm(id)
+                .switchIfEmpty(Mono.error(() -> new FilmNotFoundException("Фильма с id \"" + id + "\" нет в хранилище.")))
+                .flatMap(film -> ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(film));
+    }
+
+    public Mono<ServerResponse> findMostPopularFilms(ServerRequest request) {
+        int count = ReactiveResponses.intParam(request, "count", 10);
+        return ReactiveResponses.list(request, filmStorage.getMostPopularFilms(count).flux(), encoder);
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.controller.reactive;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.controller.error.ErrorResponse;
+import ru.yandex.practicum.filmorate.serializer.JsonChunkEncoder;
+
+import java.util.Collection;
+
+/**
+ * Общие ответы реактивного API. Списки отдаются JSON-массивом или, если клиент просит
+ * {@code application/x-ndjson}, по документу на строку; ошибки - тем же {@link ErrorResponse}, что и в MVC.
+ */
+final class ReactiveResponses {
+
+    private ReactiveResponses() {
+    }
+
+    static Mono<ServerResponse> list(ServerRequest request, Flux<? extends Collection<?>> chunks,
+                                     JsonChunkEncoder encoder) {
+        boolean ndjson = request.headers().accept().contains(MediaType.APPLICATION_NDJSON);
+        Flux<DataBuffer> body = ndjson ? encoder.ndjson(chunks) : encoder.jsonArray(chunks);
+        return ServerResponse.ok()
+                .contentType(ndjson ? MediaType.APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(BodyInserters.fromDataBuffers(body));
+    }
+
+    static Mono<ServerResponse> error(HttpStatus status, Throwable e) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ErrorResponse(status.value(), status.getReasonPhrase(), e.getMessage()));
+    }
+
+    static int intParam(ServerRequest request, String name, int defaultValue) {
+        return request.queryParam(name).map(Integer::parseInt).orElse(defaultValue);
+    }
+
+    static int pathId(ServerRequest request, String name) {
+        return Integer.parseInt(request.pathVariable(name));
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.controller.reactive;
+
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.serializer.JsonChunkEncoder;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveFriendshipDao;
+import ru.yandex.practicum.filmorate.storage.reactive.ReactiveUserStorage;
+
+/**
+ * Чтение друзей в реактивном API, ответы те же, что у {@code UserController}.
+ */
+public class ReactiveUserHandler {
+
+    private final ReactiveUserStorage userStorage;
+    private final ReactiveFriendshipDao friendshipDao;
+    private final JsonChunkEncoder encoder;
+    private final int chunkSize;
+
+    public ReactiveUserHandler(ReactiveUserStorage userStorage, ReactiveFriendshipDao friendshipDao,
+                               JsonChunkEncoder encoder, int chunkSize) {
+        this.userStorage = userStorage;
+        this.friendshipDao = friendshipDao;
+        this.encoder = encoder;
+        this.chunkSize = chunkSize;
+    }
+
+    public Mono<ServerResponse> findFriends(ServerRequest request) {
+        int id = ReactiveResponses.pathId(request, "id");
+        return findUser(id)
+                .flatMap(user -> ReactiveResponses.list(request, friendshipDao.streamFriends(id, chunkSize), encoder));
+    }
+
+    public Mono<ServerResponse> findMutualFriends(ServerRequest request) {
+        int id = ReactiveResponses.pathId(request, "id");
+        int otherId = ReactiveResponses.pathId(request, "otherId");
+        return findUser(id)
+                .then(findUser(otherId))
+                .flatMap(user -> ReactiveResponses.list(request,
+                        friendshipDao.getMutualFriends(id, otherId).flux(), encoder));
+    }
+
+    private Mono<User> findUser(int id) {
+        return userStorage.getUser(id)
+                .switchIfEmpty(Mono.error(() ->
+                        new UserNotFoundException("Пользователя с id \"" + id + "\" нет в хранилище.")));
+    }
+}
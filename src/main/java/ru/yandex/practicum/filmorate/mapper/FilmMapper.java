@@ -3,23 +3,32 @@ package ru.yandex.practicum.filmorate.mapper;
 
 import org.springframework.jdbc.core.RowMapper;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
 import ru.yandex.practicum.filmorate.storage.dao.GenreDao;
-import ru.yandex.practicum.filmorate.storage.dao.MpaDao;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Маппер строк FILM. MPA и жанры берутся из {@link ReferenceDataRegistry},
+ * связи с жанрами и лайки подгружаются пачкой через {@link #hydrate(List)}, а не на каждую строку.
+ */
 public class FilmMapper implements RowMapper<Film> {
 
-    private final MpaDao mpaDao;
+    private final ReferenceDataRegistry referenceDataRegistry;
     private final GenreDao genreDao;
     private final FilmLikesDao filmLikesDao;
 
-    public FilmMapper(MpaDao mpaDao, GenreDao genreDao, FilmLikesDao filmLikesDao) {
-        this.mpaDao = mpaDao;
+    public FilmMapper(ReferenceDataRegistry referenceDataRegistry, GenreDao genreDao, FilmLikesDao filmLikesDao) {
+        this.referenceDataRegistry = referenceDataRegistry;
         this.genreDao = genreDao;
         this.filmLikesDao = filmLikesDao;
     }
@@ -32,13 +41,34 @@ public class FilmMapper implements RowMapper<Film> {
         film.setDescription(rs.getString("description"));
         film.setReleaseDate(LocalDate.parse(rs.getString("release_date")));
         film.setDuration(Duration.ofSeconds(rs.getInt("duration")));
+        film.setVersion(rs.getInt("version"));
 
-        film.setMpa(mpaDao.findMpaById(rs.getInt("mpa_id")));
+        film.setMpa(referenceDataRegistry.getMpa(rs.getInt("mpa_id")));
 
-        film.setGenres(genreDao.findGenresByFilmId(film.getId()));
+        return film;
+    }
 
-        film.setLikes(filmLikesDao.findLikesByFilmId(film.getId()));
+    public List<Film> hydrate(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
 
-        return film;
+        List<Integer> filmIds = new ArrayList<>(films.size());
+        for (Film film : films) {
+            filmIds.add(film.getId());
+        }
+
+        Map<Integer, List<Integer>> genreIds = genreDao.findGenreIdsByFilmIds(filmIds);
+        Map<Integer, IntBitmap> likes = filmLikesDao.findLikesByFilmIds(filmIds);
+
+        for (Film film : films) {
+            List<Genre> genres = new ArrayList<>();
+            for (Integer genreId : genreIds.getOrDefault(film.getId(), List.of())) {
+                genres.add(referenceDataRegistry.getGenre(genreId));
+            }
+            film.setGenres(genres);
+            film.setLikes(likes.getOrDefault(film.getId(), new IntBitmap()));
+        }
+        return films;
     }
 }
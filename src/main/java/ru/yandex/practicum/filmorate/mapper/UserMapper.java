@@ -17,6 +17,7 @@ public class UserMapper implements RowMapper<User> {
                 rs.getString("birthday")
         );
         user.setId(rs.getInt("id"));
+        user.setVersion(rs.getInt("version"));
         return user;
     }
 }
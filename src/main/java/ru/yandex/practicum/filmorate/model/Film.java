@@ -1,14 +1,17 @@
 package ru.yandex.practicum.filmorate.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.RequiredArgsConstructor;
 import ru.yandex.practicum.filmorate.annotation.MinimumDate;
 import ru.yandex.practicum.filmorate.annotation.PositiveDuration;
 import ru.yandex.practicum.filmorate.serializer.DurationDeserializer;
 import ru.yandex.practicum.filmorate.serializer.DurationSerializer;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotBlank;
@@ -24,7 +27,7 @@ import java.util.*;
 @RequiredArgsConstructor
 public class Film {
 
-    public static final Comparator<Film> COMPARATOR_LIKES_ASC = Comparator.comparing(f -> f.getLikes().size());
+    public static final Comparator<Film> COMPARATOR_LIKES_ASC = Comparator.comparingInt(Film::getLikeCount);
     public static final Comparator<Film> COMPARATOR_LIKES_DESC = COMPARATOR_LIKES_ASC.reversed();
 
     private int id;
@@ -44,7 +47,7 @@ public class Film {
     @PositiveDuration
     private Duration duration;
 
-    private Collection<Integer> likes = new HashSet<>();    // id пользователей лайкнувших фильм
+    private IntBitmap likes = new IntBitmap();    // id пользователей лайкнувших фильм
 
     @Valid
     private Mpa mpa;
@@ -52,6 +55,10 @@ public class Film {
     private Collection<Genre> genres = new LinkedHashSet<>();   /* HashSet не проходит тесты в Postman
                                                                  (не совпадает порядок id в коллекции) */
 
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Integer version;    // null, если у фильма есть лайки, еще не записанные в базу
+
     public Film(String name, String description, Mpa mpa, String releaseDate, long duration) {
         this.name = name;
         this.description = description;
@@ -67,8 +74,28 @@ public class Film {
         this.duration = Duration.ofMinutes(duration);
     }
 
+    /**
+     * Id пользователей по возрастанию. Список только для чтения и не копирует множество лайков.
+     */
     public List<Integer> getLikes() {
-        return new ArrayList<>(likes);
+        return likes.asList();
+    }
+
+    public void setLikes(Collection<Integer> likes) {
+        if (likes instanceof IntBitmap) {
+            this.likes = (IntBitmap) likes;
+        } else {
+            this.likes = likes == null ? new IntBitmap() : new IntBitmap(likes);
+        }
+    }
+
+    @JsonIgnore
+    public int getLikeCount() {
+        return likes.size();
+    }
+
+    public boolean hasLike(int userId) {
+        return likes.contains(userId);
     }
 
     public void addLike(int userId) {
@@ -1,12 +1,16 @@
 package ru.yandex.practicum.filmorate.model;
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
-@Data
+/**
+ * Неизменяемый: {@link ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry} отдает всем фильмам
+ * один общий экземпляр на жанр.
+ */
+@Value
 @AllArgsConstructor
 public class Genre {
 
-    private int id;
-    private String name;
+    int id;
+    String name;
 }
@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Элемент пакетной загрузки лайков: поставить или снять лайк пользователя у фильма.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeOperation {
+
+    public enum Op {
+        ADD,
+        REMOVE
+    }
+
+    private Integer filmId;
+    private Integer userId;
+    private Op op;
+}
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Результат одного элемента пакетной загрузки лайков.
+ * UNCHANGED - лайк уже был в нужном состоянии, в том числе после предыдущих элементов того же пакета.
+ */
+@Data
+@AllArgsConstructor
+public class LikeOperationResult {
+
+    public enum Status {
+        APPLIED,
+        UNCHANGED,
+        FILM_NOT_FOUND,
+        USER_NOT_FOUND,
+        INVALID
+    }
+
+    private Integer filmId;
+    private Integer userId;
+    private LikeOperation.Op op;
+    private Status status;
+}
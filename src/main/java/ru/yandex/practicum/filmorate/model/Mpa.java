@@ -1,15 +1,19 @@
 package ru.yandex.practicum.filmorate.model;
 
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
 import javax.validation.constraints.Max;
 
-@Data
+/**
+ * Неизменяемый: {@link ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry} отдает всем фильмам
+ * один общий экземпляр на рейтинг.
+ */
+@Value
 @AllArgsConstructor
 public class Mpa {
 
     @Max(value = 5)
-    private int id;
-    private String name;
+    int id;
+    String name;
 }
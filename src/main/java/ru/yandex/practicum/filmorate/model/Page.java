@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Страница keyset-пагинации: элементы, отсортированные по id, и курсор для следующего запроса.
+ * Курсор равен id последнего элемента страницы, null - если дальше элементов нет.
+ */
+@Data
+public class Page<T> {
+
+    public static final int MAX_LIMIT = 1000;
+    public static final int DEFAULT_LIMIT = 100;
+
+    private final List<T> items;
+    private final Integer nextCursor;
+
+    /**
+     * Собирает страницу из выборки размером до {@code limit + 1}: лишний элемент означает, что есть следующая страница.
+     */
+    public static <T> Page<T> of(List<T> itemsWithNext, int limit, ToIntFunction<T> idGetter) {
+        if (itemsWithNext.size() <= limit) {
+            return new Page<>(itemsWithNext, null);
+        }
+        List<T> items = itemsWithNext.subList(0, limit);
+        return new Page<>(items, idGetter.applyAsInt(items.get(limit - 1)));
+    }
+
+    public static void validateLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_LIMIT + ": " + limit);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package ru.yandex.practicum.filmorate.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import ru.yandex.practicum.filmorate.annotation.WithoutSpaces;
 
 import javax.validation.constraints.Email;
@@ -32,6 +34,10 @@ public class User {
     @PastOrPresent
     private LocalDate birthday;
 
+    @JsonIgnore
+    @EqualsAndHashCode.Exclude
+    private Integer version;
+
     public User(String email, String login, String name, String birthday) {
         this.email = email;
         this.login = login;
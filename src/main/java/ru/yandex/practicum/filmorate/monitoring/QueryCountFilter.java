@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Считает SQL-выражения каждого HTTP-запроса. Итог пишется в лог с полями MDC {@code dbQueries} и {@code dbTimeMs},
+ * заголовки ответа выставляет {@link QueryCountResponseAdvice}.
+ */
+@Component
+@Slf4j
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String MDC_QUERIES = "dbQueries";
+    public static final String MDC_TIME = "dbTimeMs";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCounter.start();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            QueryCounter.Stats stats = QueryCounter.stop();
+            MDC.put(MDC_QUERIES, String.valueOf(stats.getStatements()));
+            MDC.put(MDC_TIME, String.valueOf(stats.getMillis()));
+            try {
+                log.debug("{} {}: {} SQL, {} мс в базе", request.getMethod(), request.getRequestURI(),
+                        stats.getStatements(), stats.getMillis());
+            } finally {
+                MDC.remove(MDC_QUERIES);
+                MDC.remove(MDC_TIME);
+            }
+        }
+    }
+}
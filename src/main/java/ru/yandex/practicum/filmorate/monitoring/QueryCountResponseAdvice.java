@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Добавляет к ответу заголовки {@code X-DB-Queries} и {@code X-DB-Time-Ms}.
+ * Тело ответа пишется после контроллера, поэтому заголовки ставятся прямо перед ним, пока ответ не отправлен.
+ */
+@ControllerAdvice
+public class QueryCountResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String QUERIES_HEADER = "X-DB-Queries";
+    public static final String TIME_HEADER = "X-DB-Time-Ms";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryCounter.Stats stats = QueryCounter.current();
+        if (stats != null) {
+            response.getHeaders().set(QUERIES_HEADER, String.valueOf(stats.getStatements()));
+            response.getHeaders().set(TIME_HEADER, String.valueOf(stats.getMillis()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.monitoring;
+
+/**
+ * Счетчик SQL-выражений и времени в базе для текущего потока.
+ * Считает только между {@link #start()} и {@link #stop()}, поэтому фоновые задачи в статистику запросов не попадают.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Stats> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static void start() {
+        CURRENT.set(new Stats());
+    }
+
+    /**
+     * Статистика с момента {@link #start()} или null, если счетчик не запущен.
+     */
+    public static Stats current() {
+        return CURRENT.get();
+    }
+
+    public static Stats stop() {
+        Stats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    static void record(long nanos) {
+        Stats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += nanos;
+        }
+    }
+
+    public static final class Stats {
+
+        private int statements;
+        private long nanos;
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getMillis() {
+            return nanos / 1_000_000;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Кодирует поток пачек объектов в буферы реактивного ответа, одна пачка - один буфер.
+ * JSON-массив собирается из пачек на лету, без списка всех объектов в памяти;
+ * следующую пачку источник читает, только когда клиент принял предыдущие.
+ */
+public class JsonChunkEncoder {
+
+    private static final DefaultDataBufferFactory BUFFER_FACTORY = DefaultDataBufferFactory.sharedInstance;
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter objectWriter;
+
+    public JsonChunkEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writer();
+    }
+
+    /**
+     * Объекты всех пачек одним JSON-массивом.
+     */
+    public Flux<DataBuffer> jsonArray(Flux<? extends Collection<?>> chunks) {
+        return Flux.defer(() -> {
+            boolean[] first = {true};
+            return Flux.concat(
+                    Mono.fromSupplier(() -> wrap("[")),
+                    chunks.filter(chunk -> !chunk.isEmpty()).map(chunk -> {
+                        DataBuffer buffer = encode(chunk, first[0] ? "" : ",", ",", "");
+                        first[0] = false;
+                        return buffer;
+                    }),
+                    Mono.fromSupplier(() -> wrap("]")));
+        });
+    }
+
+    /**
+     * Объекты всех пачек в формате NDJSON, по документу на строку.
+     */
+    public Flux<DataBuffer> ndjson(Flux<? extends Collection<?>> chunks) {
+        return chunks.filter(chunk -> !chunk.isEmpty()).map(chunk -> encode(chunk, "", "\n", "\n"));
+    }
+
+    private DataBuffer encode(Collection<?> chunk, String prefix, String separator, String suffix) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            generator.writeRaw(prefix);
+            boolean firstInChunk = true;
+            for (Object value : chunk) {
+                if (!firstInChunk) {
+                    generator.writeRaw(separator);
+                }
+                objectWriter.writeValue(generator, value);
+                firstInChunk = false;
+            }
+            generator.writeRaw(suffix);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return BUFFER_FACTORY.wrap(out.toByteArray());
+    }
+
+    private static DataBuffer wrap(String text) {
+        return BUFFER_FACTORY.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
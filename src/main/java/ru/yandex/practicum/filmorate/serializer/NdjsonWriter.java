@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+/**
+ * Пишет объекты в поток в формате NDJSON: один JSON-документ на строку.
+ * Выходной поток не закрывается, сброс буфера - только по {@link #flush()}.
+ */
+public class NdjsonWriter implements Closeable {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectWriter objectWriter;
+    private final JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, OutputStream out) throws IOException {
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.generator = objectMapper.getFactory().createGenerator(out)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .setRootValueSeparator(null);
+    }
+
+    public void write(Object value) throws IOException {
+        objectWriter.writeValue(generator, value);
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Пишет пачку объектов и отправляет ее клиенту. Удобно передавать как {@code Consumer} в выгрузку хранилища.
+     */
+    public void writeChunk(Collection<?> values) {
+        try {
+            for (Object value : values) {
+                write(value);
+            }
+            flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
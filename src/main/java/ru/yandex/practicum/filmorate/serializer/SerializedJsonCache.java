@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.serializer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Готовый UTF-8 JSON сущностей по ключу (id, версия), чтобы горячие {@code GET /films/{id}} и {@code GET /users/{id}}
+ * отдавали байты без повторной сериализации. На id хранится одна версия; запись с другой версией считается промахом.
+ * Размер ограничен суммарной длиной JSON, при переполнении вытесняются давно не читанные записи.
+ * Чтения идут без блокировок: LRU приблизительный, по алгоритму часов - прочитанная запись
+ * получает отметку и при обходе вытеснения вместо удаления теряет ее.
+ */
+public class SerializedJsonCache {
+
+    // заголовок записи и узла ConcurrentHashMap, чтобы маленькие записи тоже учитывались в лимите
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final ObjectWriter objectWriter;
+    private final long maxBytes;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // стрелка часов переживает вызовы, чтобы обход продолжался с места прошлого вытеснения
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private Iterator<Map.Entry<Integer, Entry>> hand;
+
+    public SerializedJsonCache(ObjectMapper objectMapper, long maxBytes) {
+        this.objectWriter = objectMapper.writer();
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Закешированная запись сущности любой версии или {@code null}. Если записи нет,
+     * проверять текущую версию в базе незачем, а если есть - JSON достается через {@link #jsonOf}.
+     */
+    public Entry get(int id) {
+        Entry entry = entries.get(id);
+        if (entry != null && !entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry;
+    }
+
+    /**
+     * JSON записи, если она именно этой версии, иначе {@code null}.
+     */
+    public byte[] jsonOf(Entry entry, Integer version) {
+        if (entry == null || version == null || entry.version != version) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.json;
+    }
+
+    /**
+     * Сериализует сущность и кладет результат в кеш, если версия известна.
+     */
+    public byte[] serialize(int id, Integer version, Object entity) {
+        byte[] json;
+        try {
+            json = objectWriter.writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (version != null && json.length + ENTRY_OVERHEAD <= maxBytes) {
+            put(id, new Entry(version, json));
+        }
+        return json;
+    }
+
+    public void invalidate(int id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            bytes.addAndGet(-removed.size());
+        }
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void put(int id, Entry entry) {
+        Entry current = entries.merge(id, entry, (previous, added) -> {
+            // параллельный запрос мог успеть положить более новую версию
+            if (previous.version > added.version) {
+                return previous;
+            }
+            bytes.addAndGet(-previous.size());
+            return added;
+        });
+        if (current != entry) {
+            return;
+        }
+        if (bytes.addAndGet(entry.size()) > maxBytes) {
+            evict(entry);
+        }
+    }
+
+    private void evict(Entry added) {
+        evictionLock.lock();
+        try {
+            // за два круга отметки снимаются со всех записей, дальше удаляется все подряд
+            int chances = 2 * entries.size();
+            while (bytes.get() > maxBytes && entries.size() > 1) {
+                if (hand == null || !hand.hasNext()) {
+                    hand = entries.entrySet().iterator();
+                }
+                Map.Entry<Integer, Entry> next = hand.next();
+                Entry candidate = next.getValue();
+                if (candidate == added) {
+                    continue;
+                }
+                if (candidate.referenced && chances-- > 0) {
+                    candidate.referenced = false;
+                } else if (entries.remove(next.getKey(), candidate)) {
+                    bytes.addAndGet(-candidate.size());
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public static final class Entry {
+
+        private final int version;
+        private final byte[] json;
+        private volatile boolean referenced;
+
+        private Entry(int version, byte[] json) {
+            this.version = version;
+            this.json = json;
+        }
+
+        private long size() {
+            return json.length + ENTRY_OVERHEAD;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
+import ru.yandex.practicum.filmorate.utils.TopLongs;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Индекс похожих фильмов для рекомендаций: для каждого фильма до {@code neighbours} соседей
+ * с наибольшей косинусной близостью по множествам лайкнувших пользователей.
+ * Строится в фоне по всей FILM_LIKES параллельно через fork/join и подменяется целиком,
+ * поэтому запрос рекомендаций только складывает списки соседей лайкнутых фильмов.
+ */
+@Component
+@Slf4j
+public class FilmRecommendationIndex {
+
+    // на столько задач делятся фильмы на каждый поток fork/join: задача заводит счетчики размером
+    // со все фильмы, поэтому задач немного, но достаточно, чтобы потоки разобрали неравные куски
+    private static final int TASKS_PER_THREAD = 8;
+    private static final int MIN_FILMS_PER_TASK = 32;
+
+    private final FilmLikesDao filmLikesDao;
+    private final int neighbours;
+
+    private volatile Neighbours index = new Neighbours(new int[0][], new float[0][]);
+
+    public FilmRecommendationIndex(FilmLikesDao filmLikesDao,
+                                   @Value("${filmorate.recommendations.neighbours:20}") int neighbours) {
+        this.filmLikesDao = filmLikesDao;
+        this.neighbours = neighbours;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${filmorate.recommendations.refresh-delay:PT10M}")
+    public void refresh() {
+        long start = System.nanoTime();
+        Map<Integer, IntBitmap> likesByFilm = filmLikesDao.findAllLikes();
+        index = build(likesByFilm);
+        log.debug("Индекс рекомендаций перестроен: {} фильмов с лайками за {} мс",
+                likesByFilm.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Фильмы, которых нет среди {@code likedFilmIds}, по убыванию суммарной близости к ним.
+     */
+    public int[] recommend(IntBitmap likedFilmIds, int count) {
+        Neighbours current = index;
+        Map<Integer, Double> scores = new HashMap<>();
+        likedFilmIds.forEachInt(filmId -> {
+            if (filmId < 0 || filmId >= current.ids.length || current.ids[filmId] == null) {
+                return;
+            }
+            int[] ids = current.ids[filmId];
+            float[] similarities = current.scores[filmId];
+            for (int i = 0; i < ids.length; i++) {
+                if (!likedFilmIds.contains(ids[i])) {
+                    scores.merge(ids[i], (double) similarities[i], Double::sum);
+                }
+            }
+        });
+
+        TopLongs top = new TopLongs(Math.min(count, scores.size()));
+        scores.forEach((filmId, score) -> top.offer(TopLongs.pack(TopLongs.rankOf(score.floatValue()), filmId)));
+        return top.toIdsDescending();
+    }
+
+    private Neighbours build(Map<Integer, IntBitmap> likesByFilm) {
+        int maxFilmId = 0;
+        int maxUserId = 0;
+        for (Map.Entry<Integer, IntBitmap> entry : likesByFilm.entrySet()) {
+            maxFilmId = Math.max(maxFilmId, entry.getKey());
+            int[] users = entry.getValue().toIntArray();
+            if (users.length > 0) {
+                maxUserId = Math.max(maxUserId, users[users.length - 1]);
+            }
+        }
+
+        int[][] filmUsers = new int[maxFilmId + 1][];
+        int[] userFilmCounts = new int[maxUserId + 1];
+        for (Map.Entry<Integer, IntBitmap> entry : likesByFilm.entrySet()) {
+            int[] users = entry.getValue().toIntArray();
+            filmUsers[entry.getKey()] = users;
+            for (int userId : users) {
+                userFilmCounts[userId]++;
+            }
+        }
+        // обратный индекс: фильмы каждого пользователя, по возрастанию id
+        int[][] userFilms = new int[maxUserId + 1][];
+        for (int userId = 0; userId <= maxUserId; userId++) {
+            userFilms[userId] = new int[userFilmCounts[userId]];
+            userFilmCounts[userId] = 0;
+        }
+        for (int filmId = 0; filmId <= maxFilmId; filmId++) {
+            if (filmUsers[filmId] != null) {
+                for (int userId : filmUsers[filmId]) {
+                    userFilms[userId][userFilmCounts[userId]++] = filmId;
+                }
+            }
+        }
+
+        Neighbours built = new Neighbours(new int[maxFilmId + 1][], new float[maxFilmId + 1][]);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int tasks = pool.getParallelism() * TASKS_PER_THREAD;
+        int filmsPerTask = Math.max(MIN_FILMS_PER_TASK, (maxFilmId + 1 + tasks - 1) / tasks);
+        pool.invoke(new BuildTask(filmUsers, userFilms, built, filmsPerTask, 0, maxFilmId + 1));
+        return built;
+    }
+
+    private final class BuildTask extends RecursiveAction {
+
+        private final int[][] filmUsers;
+        private final int[][] userFilms;
+        private final Neighbours target;
+        private final int filmsPerTask;
+        private final int from;
+        private final int to;
+
+        private BuildTask(int[][] filmUsers, int[][] userFilms, Neighbours target, int filmsPerTask,
+                          int from, int to) {
+            this.filmUsers = filmUsers;
+            this.userFilms = userFilms;
+            this.target = target;
+            this.filmsPerTask = filmsPerTask;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > filmsPerTask) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BuildTask(filmUsers, userFilms, target, filmsPerTask, from, middle),
+                        new BuildTask(filmUsers, userFilms, target, filmsPerTask, middle, to));
+                return;
+            }
+            // счетчики совместных лайков по id фильма, общие для всех фильмов задачи
+            int[] coLikes = new int[filmUsers.length];
+            int[] touched = new int[filmUsers.length];
+            for (int filmId = from; filmId < to; filmId++) {
+                int[] users = filmUsers[filmId];
+                if (users != null) {
+                    computeNeighbours(filmId, users, coLikes, touched);
+                }
+            }
+        }
+
+        private void computeNeighbours(int filmId, int[] users, int[] coLikes, int[] touched) {
+            int touchedCount = 0;
+            for (int userId : users) {
+                for (int otherFilmId : userFilms[userId]) {
+                    if (otherFilmId != filmId && coLikes[otherFilmId]++ == 0) {
+                        touched[touchedCount++] = otherFilmId;
+                    }
+                }
+            }
+
+            TopLongs top = new TopLongs(Math.min(neighbours, touchedCount));
+            for (int i = 0; i < touchedCount; i++) {
+                int otherFilmId = touched[i];
+                float similarity = (float) (coLikes[otherFilmId]
+                        / Math.sqrt((double) users.length * filmUsers[otherFilmId].length));
+                coLikes[otherFilmId] = 0;
+                top.offer(TopLongs.pack(TopLongs.rankOf(similarity), otherFilmId));
+            }
+
+            long[] sorted = top.toSortedDescending();
+            int[] ids = new int[sorted.length];
+            float[] scores = new float[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                ids[i] = TopLongs.idOf(sorted[i]);
+                scores[i] = TopLongs.scoreOf(sorted[i]);
+            }
+            // каждая задача пишет только в свой диапазон фильмов
+            target.ids[filmId] = ids;
+            target.scores[filmId] = scores;
+        }
+    }
+
+    private static final class Neighbours {
+
+        private final int[][] ids;
+        private final float[][] scores;
+
+        private Neighbours(int[][] ids, float[][] scores) {
+            this.ids = ids;
+            this.scores = scores;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.utils.TextTokenizer;
+import ru.yandex.practicum.filmorate.utils.TopLongs;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Обратный индекс по названию и описанию фильмов для {@code GET /films/search}.
+ * Для каждого терма хранит отсортированные id фильмов и вес терма в фильме, результаты ранжируются по BM25.
+ * Строится из хранилища при старте и дальше обновляется из {@link FilmService} при добавлении и изменении фильма.
+ */
+@Component
+@Slf4j
+public class FilmSearchIndex {
+
+    private static final int LOAD_CHUNK_SIZE = 500;
+    // слово из названия весит как три слова описания
+    private static final int NAME_WEIGHT = 3;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final FilmStorage filmStorage;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    // термы проиндексированной версии фильма, по ним старая версия убирается при обновлении
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    public FilmSearchIndex(@Qualifier("FilmDbStorage") FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void load() {
+        long start = System.nanoTime();
+        filmStorage.streamFilms(LOAD_CHUNK_SIZE, chunk -> chunk.forEach(this::index));
+        log.info("Поисковый индекс построен: {} фильмов, {} термов за {} мс",
+                documents.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Добавляет фильм в индекс или заменяет его прежнюю версию.
+     */
+    public void index(Film film) {
+        Map<String, Integer> terms = new HashMap<>();
+        int length = addTerms(terms, film.getName(), NAME_WEIGHT) + addTerms(terms, film.getDescription(), 1);
+        lock.writeLock().lock();
+        try {
+            removeDocument(film.getId());
+            if (terms.isEmpty()) {
+                return;
+            }
+            terms.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new Postings()).put(film.getId(), weight));
+            documents.put(film.getId(), new Document(terms.keySet().toArray(new String[0]), length));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int filmId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * До {@code count} id фильмов, содержащих хотя бы один терм запроса, по убыванию BM25.
+     */
+    public int[] search(String query, int count) {
+        Set<String> terms = new LinkedHashSet<>(TextTokenizer.tokenize(query));
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty() || terms.isEmpty()) {
+                return new int[0];
+            }
+            int documentCount = documents.size();
+            double averageLength = (double) totalLength / documentCount;
+            Map<Integer, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Postings termPostings = postings.get(term);
+                if (termPostings == null) {
+                    continue;
+                }
+                int df = termPostings.size;
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < df; i++) {
+                    int filmId = termPostings.ids[i];
+                    int tf = termPostings.weights[i];
+                    double norm = K1 * (1 - B + B * documents.get(filmId).length / averageLength);
+                    scores.merge(filmId, idf * tf * (K1 + 1) / (tf + norm), Double::sum);
+                }
+            }
+
+            TopLongs top = new TopLongs(Math.min(count, scores.size()));
+            scores.forEach((filmId, score) -> top.offer(TopLongs.pack(TopLongs.rankOf(score.floatValue()), filmId)));
+            return top.toIdsDescending();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int addTerms(Map<String, Integer> terms, String text, int weight) {
+        List<String> tokens = TextTokenizer.tokenize(text);
+        for (String token : tokens) {
+            terms.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private void removeDocument(int filmId) {
+        Document document = documents.remove(filmId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            Postings termPostings = postings.get(term);
+            termPostings.remove(filmId);
+            if (termPostings.size == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    private static final class Document {
+
+        private final String[] terms;
+        private final int length;
+
+        private Document(String[] terms, int length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Список вхождений терма: id фильмов по возрастанию и вес терма в каждом из них.
+     * Новые фильмы получают самые большие id, поэтому вставка обычно дописывает в конец.
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        private void put(int filmId, int weight) {
+            int index = Arrays.binarySearch(ids, 0, size, filmId);
+            if (index >= 0) {
+                weights[index] = weight;
+                return;
+            }
+            index = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            System.arraycopy(weights, index, weights, index + 1, size - index);
+            ids[index] = filmId;
+            weights[index] = weight;
+            size++;
+        }
+
+        private void remove(int filmId) {
+            int index = Arrays.binarySearch(ids, 0, size, filmId);
+            if (index < 0) {
+                return;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+            size--;
+        }
+    }
+}
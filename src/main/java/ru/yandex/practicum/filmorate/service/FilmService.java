@@ -4,43 +4,77 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationResult;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.serializer.SerializedJsonCache;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
 import ru.yandex.practicum.filmorate.storage.dao.GenreDao;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
 
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class FilmService {
 
+    private static final int EXPORT_CHUNK_SIZE = 500;
+    public static final int MAX_LIKE_BATCH_SIZE = 10_000;
+
     private final FilmStorage filmStorage;
     private final UserService userService;
     private final FilmLikesDao filmLikesDao;
     private final GenreDao genreDao;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final FilmRecommendationIndex filmRecommendationIndex;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final FilmSearchIndex filmSearchIndex;
+    private final SerializedJsonCache filmJsonCache;
 
     public FilmService(@Qualifier("FilmDbStorage") FilmStorage filmStorage,
                        UserService userService,
                        FilmLikesDao filmLikesDao,
-                       GenreDao genreDao) {
+                       GenreDao genreDao,
+                       PopularityLeaderboard popularityLeaderboard,
+                       ReferenceDataRegistry referenceDataRegistry,
+                       FilmRecommendationIndex filmRecommendationIndex,
+                       LikeWriteBuffer likeWriteBuffer,
+                       FilmSearchIndex filmSearchIndex,
+                       @Qualifier("filmJsonCache") SerializedJsonCache filmJsonCache) {
         this.filmStorage = filmStorage;
         this.userService = userService;
         this.filmLikesDao = filmLikesDao;
         this.genreDao = genreDao;
+        this.popularityLeaderboard = popularityLeaderboard;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.filmRecommendationIndex = filmRecommendationIndex;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.filmSearchIndex = filmSearchIndex;
+        this.filmJsonCache = filmJsonCache;
     }
 
+    @Transactional
     public Film addFilm(Film film) {
+        final Collection<Genre> genres = resolveGenres(film.getGenres());
+        film.setMpa(resolveMpa(film.getMpa()));
         final Film filmAdded = filmStorage.addFilm(film);
 
-        updateGenres(filmAdded.getId(), film.getGenres());
+        genreDao.updateFilmGenres(filmAdded.getId(), genres);
+        filmAdded.setGenres(genres);
 
         filmLikesDao.updateFilmLikes(filmAdded.getId(), film.getLikes());
 
@@ -48,32 +82,73 @@ public class FilmService {
                 filmAdded.getId(), filmAdded.getName(), filmAdded.getDescription(), filmAdded.getReleaseDate(),
                 filmAdded.getDuration(), filmAdded.getMpa().toString(), filmAdded.getGenres().toString());
 
-        return findFilmById(filmAdded.getId());
+        afterCommit(() -> {
+            popularityLeaderboard.setLikeCount(filmAdded.getId(), filmAdded.getLikes().size());
+            filmSearchIndex.index(filmAdded);
+        });
+        return filmAdded;
     }
 
+    @Transactional
     public Film updateFilm(Film film) {
-        this.findFilmById(film.getId());
-        final Film filmUpdated = filmStorage.updateFilm(film);
+        likeWriteBuffer.drain();
+        final Collection<Genre> genres = resolveGenres(film.getGenres());
+        film.setMpa(resolveMpa(film.getMpa()));
+        final Film filmUpdated;
+        try {
+            filmUpdated = filmStorage.updateFilm(film);
+        } catch (EmptyResultDataAccessException e) {
+            throw new FilmNotFoundException("Фильма с id \"" + film.getId() + "\" нет в хранилище.");
+        }
 
-        updateGenres(filmUpdated.getId(), film.getGenres());
+        genreDao.replaceFilmGenres(filmUpdated.getId(), genres);
+        filmUpdated.setGenres(genres);
 
+        // лайки при обновлении только добавляются, поэтому итоговый список читаем из базы
         filmLikesDao.updateFilmLikes(filmUpdated.getId(), film.getLikes());
+        filmUpdated.setLikes(filmLikesDao.findLikesByFilmId(filmUpdated.getId()));
 
         log.debug("Обновлен фильм: {}, {}, {}, {}, {}, {}, {}",
                 filmUpdated.getId(), filmUpdated.getName(), filmUpdated.getDescription(), filmUpdated.getMpa().getId(),
                 filmUpdated.getGenres().toString(), filmUpdated.getReleaseDate(), filmUpdated.getDuration());
-        return findFilmById(filmUpdated.getId());
+
+        afterCommit(() -> {
+            popularityLeaderboard.setLikeCount(filmUpdated.getId(), filmUpdated.getLikes().size());
+            filmSearchIndex.index(filmUpdated);
+            filmJsonCache.invalidate(filmUpdated.getId());
+        });
+        return filmUpdated;
     }
 
     public List<Film> findAll() {
         final List<Film> films = filmStorage.getFilms();
+        likeWriteBuffer.mergeInto(films);
         log.debug("Все фильмы: {}", films.toString());
         return films;
     }
 
+    public Page<Film> findPage(int afterId, int limit) {
+        Page.validateLimit(limit);
+        final Page<Film> page = Page.of(filmStorage.getFilms(afterId, limit + 1), limit, Film::getId);
+        likeWriteBuffer.mergeInto(page.getItems());
+        log.debug("Страница фильмов после id = {}: {} шт., следующий курсор: {}",
+                afterId, page.getItems().size(), page.getNextCursor());
+        return page;
+    }
+
+    public void exportFilms(Consumer<List<Film>> chunkConsumer) {
+        log.debug("Начата выгрузка фильмов");
+        filmStorage.streamFilms(EXPORT_CHUNK_SIZE, chunk -> {
+            likeWriteBuffer.mergeInto(chunk);
+            chunkConsumer.accept(chunk);
+        });
+        log.debug("Выгрузка фильмов завершена");
+    }
+
     public Film findFilmById(int filmId) {
         try {
             final Film film = filmStorage.getFilm(filmId);
+            likeWriteBuffer.mergeInto(film);
             log.debug("Найден фильм: id={},\n name={}, description={}, releaseDate={}, duration={}, mpaId={}, genres={},\n",
                     film.getId(), film.getName(), film.getDescription(), film.getReleaseDate(),
                     film.getDuration(), film.getMpa(), film.getGenres().toString());
@@ -83,10 +158,31 @@ public class FilmService {
         }
     }
 
+    /**
+     * Версия фильма одним запросом по первичному ключу, без жанров и лайков.
+     * {@code null}, если у фильма есть лайки в буфере: версия в базе их еще не учитывает.
+     */
+    public Integer getFilmVersion(int filmId) {
+        if (likeWriteBuffer.hasPending(filmId)) {
+            return null;
+        }
+        try {
+            return filmStorage.getFilmVersion(filmId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new FilmNotFoundException("Фильма с id \"" + filmId + "\" нет в хранилище.");
+        }
+    }
+
     public Film addLike(int filmId, int userId) {
         final Film film = this.findFilmById(filmId);
         final User user = userService.findUserById(userId);
-        filmLikesDao.addLike(film.getId(), user.getId());
+        if (likeWriteBuffer.isEnabled()) {
+            likeWriteBuffer.record(film, user.getId(), true);
+        } else {
+            filmLikesDao.addLike(film.getId(), user.getId());
+            popularityLeaderboard.increment(film.getId());
+        }
+        filmJsonCache.invalidate(film.getId());
         film.addLike(userId);
         log.debug("Добавлен лайк фильму: {}", film);
         return film;
@@ -95,15 +191,87 @@ public class FilmService {
     public Film removeLike(int filmId, int userId) {
         final Film film = this.findFilmById(filmId);
         final User user = userService.findUserById(userId);
-        filmLikesDao.removeLike(film.getId(), user.getId());
+        if (likeWriteBuffer.isEnabled()) {
+            likeWriteBuffer.record(film, user.getId(), false);
+        } else if (filmLikesDao.removeLike(film.getId(), user.getId())) {
+            popularityLeaderboard.decrement(film.getId());
+        }
+        filmJsonCache.invalidate(film.getId());
         film.removeLike(user.getId());
         log.debug("Удален лайк у фильма: {}", film);
         return film;
     }
 
+    /**
+     * Применяет пакет лайков в одной транзакции. Фильмы, пользователи и текущие лайки читаются
+     * тремя запросами на весь пакет, элементы применяются по порядку в памяти, а в базу уходит
+     * только итоговое изменение каждой пары фильм-пользователь.
+     */
+    @Transactional
+    public List<LikeOperationResult> applyLikes(List<LikeOperation> operations) {
+        if (operations.size() > MAX_LIKE_BATCH_SIZE) {
+            throw new ValidationException("Размер пакета лайков должен быть не больше " + MAX_LIKE_BATCH_SIZE +
+                    ": " + operations.size());
+        }
+        likeWriteBuffer.drain();
+        Set<Integer> filmIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (LikeOperation operation : operations) {
+            if (isValid(operation)) {
+                filmIds.add(operation.getFilmId());
+                userIds.add(operation.getUserId());
+            }
+        }
+        final IntBitmap existingFilmIds = filmLikesDao.findExistingFilmIds(filmIds);
+        final IntBitmap existingUserIds = filmLikesDao.findExistingUserIds(userIds);
+        final Map<Integer, IntBitmap> likes = existingFilmIds.isEmpty() || existingUserIds.isEmpty()
+                ? new HashMap<>()
+                : filmLikesDao.findLikes(existingFilmIds, existingUserIds);
+
+        // итоговое изменение по паре (filmId << 32 | userId); второе изменение пары возвращает ее в исходное состояние
+        Map<Long, LikeOperation> changes = new LinkedHashMap<>();
+        List<LikeOperationResult> results = new ArrayList<>(operations.size());
+        for (LikeOperation operation : operations) {
+            LikeOperationResult.Status status;
+            if (!isValid(operation)) {
+                status = LikeOperationResult.Status.INVALID;
+            } else if (!existingFilmIds.contains(operation.getFilmId().intValue())) {
+                status = LikeOperationResult.Status.FILM_NOT_FOUND;
+            } else if (!existingUserIds.contains(operation.getUserId().intValue())) {
+                status = LikeOperationResult.Status.USER_NOT_FOUND;
+            } else {
+                IntBitmap filmLikes = likes.computeIfAbsent(operation.getFilmId(), id -> new IntBitmap());
+                boolean changed = operation.getOp() == LikeOperation.Op.ADD
+                        ? filmLikes.add(operation.getUserId().intValue())
+                        : filmLikes.remove(operation.getUserId().intValue());
+                if (changed) {
+                    long pair = ((long) operation.getFilmId() << 32) | (operation.getUserId() & 0xFFFFFFFFL);
+                    if (changes.remove(pair) == null) {
+                        changes.put(pair, operation);
+                    }
+                }
+                status = changed ? LikeOperationResult.Status.APPLIED : LikeOperationResult.Status.UNCHANGED;
+            }
+            results.add(operation == null
+                    ? new LikeOperationResult(null, null, null, status)
+                    : new LikeOperationResult(operation.getFilmId(), operation.getUserId(), operation.getOp(), status));
+        }
+
+        if (!changes.isEmpty()) {
+            final Map<Integer, Integer> likeCounts = filmLikesDao.applyLikes(changes.values());
+            afterCommit(() -> likeCounts.forEach((filmId, likeCount) -> {
+                popularityLeaderboard.setLikeCount(filmId, likeCount);
+                filmJsonCache.invalidate(filmId);
+            }));
+        }
+        log.debug("Применен пакет лайков: {} элементов, {} изменений в базе", operations.size(), changes.size());
+        return results;
+    }
+
     public List<Film> getMostPopularFilms(int count) {
 
-        List<Film> mostPopularFilms = filmLikesDao.getMostPopularFilms(count);
+        List<Film> mostPopularFilms = filmStorage.getFilmsByIds(popularityLeaderboard.getTop(count));
+        likeWriteBuffer.mergeInto(mostPopularFilms);
 
         log.debug("Список фильмов по лайкам: {}",
                 mostPopularFilms);
@@ -111,17 +279,91 @@ public class FilmService {
         return mostPopularFilms;
     }
 
-    private void updateGenres(int filmId, Collection<Genre> genres) {
-        Set<Integer> filmGenresIds = new HashSet<>();
+    /**
+     * Фильмы, похожие на лайкнутые пользователем, по индексу {@link FilmRecommendationIndex}.
+     */
+    public List<Film> getRecommendations(int userId, int count) {
+        if (count < 1) {
+            throw new ValidationException("Количество рекомендаций должно быть больше 0: " + count);
+        }
+        final User user = userService.findUserById(userId);
+
+        final IntBitmap likedFilmIds = filmLikesDao.findFilmIdsByUserId(user.getId());
+        likeWriteBuffer.mergeInto(user.getId(), likedFilmIds);
+        int[] filmIds = filmRecommendationIndex.recommend(likedFilmIds, count);
+        List<Film> recommendations = filmStorage.getFilmsByIds(Arrays.stream(filmIds).boxed()
+                .collect(Collectors.toList()));
+        likeWriteBuffer.mergeInto(recommendations);
+
+        log.debug("Рекомендации для пользователя id = {}: {}", user.getId(), recommendations);
+
+        return recommendations;
+    }
+
+    /**
+     * Поиск по названию и описанию через {@link FilmSearchIndex}, самые подходящие фильмы первыми.
+     */
+    public List<Film> searchFilms(String query, int count) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Поисковый запрос не должен быть пустым");
+        }
+        if (count < 1) {
+            throw new ValidationException("Количество результатов поиска должно быть больше 0: " + count);
+        }
+        int[] filmIds = filmSearchIndex.search(query, count);
+        List<Film> films = filmStorage.getFilmsByIds(Arrays.stream(filmIds).boxed().collect(Collectors.toList()));
+        likeWriteBuffer.mergeInto(films);
+
+        log.debug("Поиск фильмов по запросу \"{}\": {}", query, films);
+
+        return films;
+    }
+
+    /**
+     * Проверяет жанры по справочнику и возвращает их без повторов в порядке id, как они читаются из базы.
+     */
+    private Collection<Genre> resolveGenres(Collection<Genre> genres) {
+        Set<Integer> genreIds = new TreeSet<>();
         for (Genre genre : genres) {
-            filmGenresIds.add(genre.getId());
+            if (!referenceDataRegistry.containsGenre(genre.getId())) {
+                throw new ValidationException("Некорректный ввод жанров: " + genres);
+            }
+            genreIds.add(genre.getId());
+        }
+        Collection<Genre> resolved = new LinkedHashSet<>();
+        for (Integer genreId : genreIds) {
+            resolved.add(referenceDataRegistry.getGenre(genreId));
         }
+        return resolved;
+    }
+
+    private static boolean isValid(LikeOperation operation) {
+        return operation != null && operation.getFilmId() != null && operation.getUserId() != null
+                && operation.getOp() != null;
+    }
 
-        Set<Integer> matchGenresIds = genreDao.getMatchGenresId(filmGenresIds);
+    private Mpa resolveMpa(Mpa mpa) {
+        Mpa resolved = mpa == null ? null : referenceDataRegistry.getMpa(mpa.getId());
+        if (resolved == null) {
+            throw new ValidationException("Некорректный рейтинг MPA: " + mpa);
+        }
+        return resolved;
+    }
 
-        if (!filmGenresIds.equals(matchGenresIds)) {
-            throw new ValidationException("Некорректный ввод жанров: " + genres);
+    /**
+     * Рейтинг, поисковый индекс и кеш JSON видны другим запросам сразу, поэтому обновляются
+     * только после коммита: при откате транзакции они не должны опережать базу.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
-        genreDao.updateFilmGenres(filmId, genres);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
@@ -0,0 +1,235 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.dao.FriendshipDao;
+import ru.yandex.practicum.filmorate.utils.TopLongs;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Граф дружбы в памяти приложения: для каждого пользователя отсортированный массив id друзей.
+ * Заполняется из FRIENDSHIP при старте и дальше обновляется из {@link UserService}.
+ * Строка пользователя после публикации не меняется, запись заменяет ее новой копией,
+ * поэтому читатели работают без блокировок.
+ */
+@Component
+@Slf4j
+public class FriendshipGraph {
+
+    private static final int[] NO_FRIENDS = new int[0];
+    // во столько раз один список должен быть длиннее другого, чтобы искать по нему галопом
+    private static final int GALLOP_RATIO = 16;
+    private static final int EXCLUDED = Integer.MIN_VALUE;
+
+    private final FriendshipDao friendshipDao;
+
+    private volatile AtomicReferenceArray<int[]> rows = new AtomicReferenceArray<>(0);
+    private volatile int maxUserId;
+    // обнуленные счетчики общих друзей для повторного использования, не больше одного на ядро
+    private final Queue<int[]> freeCounters = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors());
+
+    public FriendshipGraph(FriendshipDao friendshipDao) {
+        this.friendshipDao = friendshipDao;
+    }
+
+    @PostConstruct
+    public synchronized void load() {
+        Map<Integer, List<Integer>> friendIds = friendshipDao.findAllFriendIds();
+        int maxUserId = 0;
+        for (Integer userId : friendIds.keySet()) {
+            maxUserId = Math.max(maxUserId, userId);
+        }
+        AtomicReferenceArray<int[]> loaded = new AtomicReferenceArray<>(maxUserId + 1);
+        int edges = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : friendIds.entrySet()) {
+            // повторы возможны в базе, созданной до первичного ключа FRIENDSHIP
+            int[] row = entry.getValue().stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+            loaded.set(entry.getKey(), row);
+            edges += row.length;
+            if (row.length > 0) {
+                maxUserId = Math.max(maxUserId, row[row.length - 1]);
+            }
+        }
+        rows = loaded;
+        this.maxUserId = maxUserId;
+        log.info("Граф дружбы загружен: {} пользователей с друзьями, {} связей", friendIds.size(), edges);
+    }
+
+    /**
+     * Отсортированные id друзей пользователя. Массив общий, изменять его нельзя.
+     */
+    public int[] getFriendIds(int userId) {
+        AtomicReferenceArray<int[]> current = rows;
+        if (userId < 0 || userId >= current.length()) {
+            return NO_FRIENDS;
+        }
+        int[] row = current.get(userId);
+        return row == null ? NO_FRIENDS : row;
+    }
+
+    public int[] getMutualFriendIds(int userId1, int userId2) {
+        int[] friends1 = getFriendIds(userId1);
+        int[] friends2 = getFriendIds(userId2);
+        if (friends1.length > friends2.length) {
+            int[] swap = friends1;
+            friends1 = friends2;
+            friends2 = swap;
+        }
+        if (friends1.length == 0) {
+            return NO_FRIENDS;
+        }
+        return (long) friends1.length * GALLOP_RATIO < friends2.length
+                ? intersectGalloping(friends1, friends2)
+                : intersectMerge(friends1, friends2);
+    }
+
+    /**
+     * Кандидаты в друзья: друзья друзей, которые еще не в друзьях у пользователя,
+     * по убыванию числа общих друзей, при равенстве - по возрастанию id.
+     */
+    public int[] getSuggestedFriendIds(int userId, int count) {
+        int[] friends = getFriendIds(userId);
+        if (friends.length == 0) {
+            return NO_FRIENDS;
+        }
+        // id плотные, поэтому счетчик общих друзей - массив int по id: без хеширования и без Integer.
+        // Массив берется из пула обнуленным и возвращается туда, обнулив только затронутые ячейки
+        int[] mutualCounts = takeCounter(Math.max(userId, friends[friends.length - 1]));
+        // сам пользователь и его друзья помечены отрицательным счетчиком и в кандидаты не попадают
+        mutualCounts[userId] = EXCLUDED;
+        for (int friendId : friends) {
+            mutualCounts[friendId] = EXCLUDED;
+        }
+        int[] candidates = new int[64];
+        int candidateCount = 0;
+        for (int friendId : friends) {
+            for (int candidateId : getFriendIds(friendId)) {
+                if (candidateId >= mutualCounts.length) {
+                    // пользователь добавлен в граф во время обхода
+                    mutualCounts = Arrays.copyOf(mutualCounts, candidateId + 1);
+                }
+                if (mutualCounts[candidateId]++ == 0) {
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount << 1);
+                    }
+                    candidates[candidateCount++] = candidateId;
+                }
+            }
+        }
+
+        TopLongs top = new TopLongs(Math.min(count, candidateCount));
+        for (int i = 0; i < candidateCount; i++) {
+            int candidateId = candidates[i];
+            top.offer(TopLongs.pack(mutualCounts[candidateId], candidateId));
+            mutualCounts[candidateId] = 0;
+        }
+        mutualCounts[userId] = 0;
+        for (int friendId : friends) {
+            mutualCounts[friendId] = 0;
+        }
+        freeCounters.offer(mutualCounts);
+        return top.toIdsDescending();
+    }
+
+    private int[] takeCounter(int maxId) {
+        int length = Math.max(maxUserId, maxId) + 1;
+        int[] counter = freeCounters.poll();
+        // счетчик, созданный до появления новых пользователей, короче нужного и просто отбрасывается
+        return counter != null && counter.length >= length ? counter : new int[length];
+    }
+
+    public synchronized void addFriend(int userId, int friendId) {
+        int[] row = getFriendIds(userId);
+        int index = Arrays.binarySearch(row, friendId);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        maxUserId = Math.max(maxUserId, Math.max(userId, friendId));
+        int[] updated = new int[row.length + 1];
+        System.arraycopy(row, 0, updated, 0, index);
+        updated[index] = friendId;
+        System.arraycopy(row, index, updated, index + 1, row.length - index);
+        setRow(userId, updated);
+    }
+
+    public synchronized void removeFriend(int userId, int friendId) {
+        int[] row = getFriendIds(userId);
+        int index = Arrays.binarySearch(row, friendId);
+        if (index < 0) {
+            return;
+        }
+        int[] updated = row.length == 1 ? NO_FRIENDS : new int[row.length - 1];
+        System.arraycopy(row, 0, updated, 0, index);
+        System.arraycopy(row, index + 1, updated, index, row.length - index - 1);
+        setRow(userId, updated);
+    }
+
+    private void setRow(int userId, int[] row) {
+        AtomicReferenceArray<int[]> current = rows;
+        if (userId >= current.length()) {
+            AtomicReferenceArray<int[]> grown = new AtomicReferenceArray<>(Math.max(userId + 1,
+                    current.length() + (current.length() >> 1)));
+            for (int i = 0; i < current.length(); i++) {
+                grown.set(i, current.get(i));
+            }
+            grown.set(userId, row);
+            rows = grown;
+        } else {
+            current.set(userId, row);
+        }
+    }
+
+    private static int[] intersectMerge(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < small.length && j < large.length) {
+            if (small[i] < large[j]) {
+                i++;
+            } else if (small[i] > large[j]) {
+                j++;
+            } else {
+                result[count++] = small[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private static int[] intersectGalloping(int[] small, int[] large) {
+        int[] result = new int[small.length];
+        int count = 0;
+        int from = 0;
+        for (int value : small) {
+            // шагами 1, 2, 4, ... находим отрезок, где может быть значение, и ищем в нем бинарным поиском
+            int step = 1;
+            int to = from;
+            while (to < large.length && large[to] < value) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(large, from, Math.min(to + 1, large.length), value);
+            if (index >= 0) {
+                result[count++] = value;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
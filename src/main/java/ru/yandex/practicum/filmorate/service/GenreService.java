@@ -1,31 +1,34 @@
 package ru.yandex.practicum.filmorate.service;
 
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.dao.GenreDao;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 
 import java.util.List;
 
 @Service
 public class GenreService {
 
-    private final GenreDao genreDao;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
-    public GenreService(GenreDao genreDao) {
-        this.genreDao = genreDao;
+    public GenreService(ReferenceDataRegistry referenceDataRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
+    }
+
+    public long getVersion() {
+        return referenceDataRegistry.getVersion();
     }
 
     public List<Genre> findAll() {
-        return genreDao.findAll();
+        return referenceDataRegistry.getAllGenres();
     }
 
     public Genre findGenreById(int id) {
-        try {
-            return genreDao.findGenreById(id);
-        } catch (EmptyResultDataAccessException e) {
+        Genre genre = referenceDataRegistry.getGenre(id);
+        if (genre == null) {
             throw new GenreNotFoundException("Такого жанра нет в хранилище");
         }
+        return genre;
     }
 }
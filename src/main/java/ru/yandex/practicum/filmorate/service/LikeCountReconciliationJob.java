@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+
+/**
+ * Периодически сверяет денормализованный FILM.LIKE_COUNT с таблицей FILM_LIKES.
+ * Первый запуск сразу после старта приложения чинит счетчики, оставшиеся от старой схемы.
+ * Если что-то пересчитано, рейтинг популярности перечитывается из исправленного LIKE_COUNT.
+ */
+@Component
+@Slf4j
+public class LikeCountReconciliationJob {
+
+    private final FilmLikesDao filmLikesDao;
+    private final PopularityLeaderboard popularityLeaderboard;
+
+    public LikeCountReconciliationJob(FilmLikesDao filmLikesDao, PopularityLeaderboard popularityLeaderboard) {
+        this.filmLikesDao = filmLikesDao;
+        this.popularityLeaderboard = popularityLeaderboard;
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${filmorate.likes.reconcile-delay:PT1H}")
+    public void reconcile() {
+        int fixed = filmLikesDao.reconcileLikeCounts();
+        if (fixed > 0) {
+            log.warn("Пересчитан LIKE_COUNT у {} фильмов", fixed);
+            popularityLeaderboard.load();
+        } else {
+            log.debug("LIKE_COUNT совпадает с FILM_LIKES");
+        }
+    }
+}
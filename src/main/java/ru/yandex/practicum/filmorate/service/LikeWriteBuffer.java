@@ -0,0 +1,473 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Отложенная запись лайков (write-behind), включается профилем {@code write-behind}: кроме свойства
+ * {@code filmorate.likes.write-behind.enabled} он не дает H2 закрыть базу до сброса буфера при остановке.
+ * Лайки и их снятие копятся в памяти по полосам фильмов и пишутся в FILM_LIKES одним пакетом
+ * раз в {@code flush-delay} или после {@code max-entries} изменений. Противоположные изменения
+ * одной пары фильм-пользователь до записи взаимно уничтожаются.
+ * Каждое изменение сначала дописывается в журнал: после падения приложения журнал применяется при старте,
+ * при штатной остановке буфер сбрасывается в базу. Журнал пишется без fsync, поэтому переживает падение
+ * процесса, но не сбой ОС или отключение питания: тогда теряются изменения, еще не записанные в базу.
+ * Чтения накладывают буфер поверх базы, поэтому пользователь сразу видит свой лайк.
+ * Рейтинг популярности в этом режиме обновляет буфер.
+ */
+@Component
+@Slf4j
+public class LikeWriteBuffer {
+
+    private static final int STRIPES = 64;
+    private static final String JOURNAL_PREFIX = "likes-";
+    private static final String JOURNAL_SUFFIX = ".journal";
+
+    private final FilmLikesDao filmLikesDao;
+    private final PopularityLeaderboard popularityLeaderboard;
+    private final TransactionTemplate newTransaction;
+    private final Executor flushExecutor;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Path journalDir;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    // изменения берут блокировку на чтение, смена буфера и журнала при сбросе - на запись
+    private final ReadWriteLock rotationLock = new ReentrantReadWriteLock();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private FileChannel journal;
+    private long journalSeq;
+
+    public LikeWriteBuffer(FilmLikesDao filmLikesDao,
+                           PopularityLeaderboard popularityLeaderboard,
+                           PlatformTransactionManager transactionManager,
+                           @Qualifier("applicationTaskExecutor") Executor flushExecutor,
+                           @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                           @Value("${filmorate.likes.write-behind.max-entries:10000}") int maxEntries,
+                           @Value("${filmorate.likes.write-behind.journal-dir:./db/likes-journal}") String journalDir) {
+        this.filmLikesDao = filmLikesDao;
+        this.popularityLeaderboard = popularityLeaderboard;
+        // сброс не должен зависеть от транзакции вызывающего: его откат не отменяет записанный журнал
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        // сброс ждет базу, поэтому идет в пул задач приложения, а не в общий ForkJoinPool для вычислений
+        this.flushExecutor = flushExecutor;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.journalDir = Paths.get(journalDir);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Применяет журнал, оставшийся после аварийной остановки, и открывает новый.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(journalDir);
+            List<Path> journals = listJournals();
+            if (!journals.isEmpty()) {
+                Map<Long, LikeOperation> operations = new LinkedHashMap<>();
+                for (Path path : journals) {
+                    readJournal(path, operations);
+                }
+                Map<Integer, Integer> likeCounts = newTransaction.execute(status ->
+                        filmLikesDao.applyLikes(operations.values()));
+                likeCounts.forEach(popularityLeaderboard::setLikeCount);
+                journalSeq = seqOf(journals.get(journals.size() - 1));
+                deleteJournals(journalSeq);
+                log.info("Из журнала лайков применено {} изменений", operations.size());
+            }
+            openJournal(journalSeq + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось подготовить журнал лайков в " + journalDir, e);
+        }
+    }
+
+    /**
+     * Ставит или снимает лайк в буфере. База при этом не читается: текущее состояние пары берется из буфера,
+     * а если его там нет - из {@code film}, прочитанного вызывающим с уже наложенным буфером.
+     * Пакет при сбросе применяется идемпотентно, поэтому устаревший {@code film} не портит FILM_LIKES.
+     *
+     * @return true, если состояние лайка изменилось
+     */
+    public boolean record(Film film, int userId, boolean liked) {
+        int filmId = film.getId();
+        rotationLock.readLock().lock();
+        try {
+            Stripe stripe = stripe(filmId);
+            synchronized (stripe) {
+                Boolean pendingLiked = stripe.get(stripe.pending, filmId, userId);
+                Boolean flushingLiked = stripe.get(stripe.flushing, filmId, userId);
+                boolean currentLiked = pendingLiked != null ? pendingLiked
+                        : flushingLiked != null ? flushingLiked : film.hasLike(userId);
+                if (currentLiked == liked) {
+                    return false;
+                }
+                appendToJournal(filmId, userId, liked);
+                // в буфере лежат только настоящие изменения, поэтому обратное изменение возвращает пару к базе
+                if (pendingLiked != null) {
+                    stripe.remove(stripe.pending, filmId, userId);
+                    pendingCount.decrementAndGet();
+                } else {
+                    stripe.pending.computeIfAbsent(filmId, id -> new HashMap<>()).put(userId, liked);
+                    pendingCount.incrementAndGet();
+                }
+                if (liked) {
+                    popularityLeaderboard.increment(filmId);
+                } else {
+                    popularityLeaderboard.decrement(filmId);
+                }
+            }
+        } finally {
+            rotationLock.readLock().unlock();
+        }
+        if (pendingCount.get() >= maxEntries && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    log.error("Не удалось сбросить буфер лайков", e);
+                }
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Накладывает на лайки фильма изменения, еще не записанные в базу.
+     * Версия такого фильма сбрасывается: версия из базы этих изменений еще не учитывает.
+     */
+    public void mergeInto(Film film) {
+        if (!enabled) {
+            return;
+        }
+        Stripe stripe = stripe(film.getId());
+        synchronized (stripe) {
+            Map<Integer, Boolean> flushing = stripe.flushing.get(film.getId());
+            Map<Integer, Boolean> pending = stripe.pending.get(film.getId());
+            apply(flushing, film);
+            apply(pending, film);
+            if (flushing != null || pending != null) {
+                film.setVersion(null);
+            }
+        }
+    }
+
+    /**
+     * Есть ли у фильма изменения лайков, которые буфер накладывает на чтения.
+     * Записанные изменения считаются до следующего сброса, как и в {@link #mergeInto(Film)}.
+     */
+    public boolean hasPending(int filmId) {
+        if (!enabled) {
+            return false;
+        }
+        Stripe stripe = stripe(filmId);
+        synchronized (stripe) {
+            return stripe.flushing.containsKey(filmId) || stripe.pending.containsKey(filmId);
+        }
+    }
+
+    public void mergeInto(Collection<Film> films) {
+        if (enabled) {
+            films.forEach(this::mergeInto);
+        }
+    }
+
+    /**
+     * Накладывает на фильмы, лайкнутые пользователем, изменения, еще не записанные в базу.
+     */
+    public void mergeInto(int userId, IntBitmap likedFilmIds) {
+        if (!enabled) {
+            return;
+        }
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                apply(stripe.flushing, userId, likedFilmIds);
+                apply(stripe.pending, userId, likedFilmIds);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.write-behind.flush-delay:PT1S}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<LikeOperation> operations = new ArrayList<>();
+            long flushedSeq;
+            rotationLock.writeLock().lock();
+            try {
+                for (Stripe stripe : stripes) {
+                    synchronized (stripe) {
+                        // записываемые изменения остаются видны чтениям до следующего сброса
+                        stripe.flushing = stripe.pending;
+                        stripe.pending = new HashMap<>();
+                        stripe.flushing.forEach((filmId, users) -> users.forEach((userId, liked) ->
+                                operations.add(new LikeOperation(filmId, userId,
+                                        liked ? LikeOperation.Op.ADD : LikeOperation.Op.REMOVE))));
+                    }
+                }
+                pendingCount.set(0);
+                // журнал может быть пустым, когда в буфер вернулись изменения после неудачного сброса
+                if (operations.isEmpty() && journal.size() == 0) {
+                    return;
+                }
+                flushedSeq = journalSeq;
+                journal.close();
+                openJournal(journalSeq + 1);
+            } finally {
+                rotationLock.writeLock().unlock();
+            }
+
+            Map<Integer, Integer> likeCounts = Map.of();
+            if (!operations.isEmpty()) {
+                try {
+                    likeCounts = newTransaction.execute(status -> filmLikesDao.applyLikes(operations));
+                } catch (RuntimeException e) {
+                    restoreFlushing();
+                    throw e;
+                }
+            }
+            deleteJournals(flushedSeq);
+            for (Map.Entry<Integer, Integer> entry : likeCounts.entrySet()) {
+                Stripe stripe = stripe(entry.getKey());
+                synchronized (stripe) {
+                    popularityLeaderboard.setLikeCount(entry.getKey(),
+                            entry.getValue() + pendingDelta(stripe, entry.getKey()));
+                }
+            }
+            log.debug("Буфер лайков записан в базу: {} изменений", operations.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сменить журнал лайков", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Записывает буфер в базу и перестает накладывать записанное на чтения.
+     * Вызывается перед операциями, которые пишут лайки в базу в обход буфера.
+     */
+    public void drain() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            flush();
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.flushing = new HashMap<>();
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            rotationLock.writeLock().lock();
+            try {
+                boolean empty = journal.size() == 0;
+                journal.close();
+                if (empty) {
+                    Files.deleteIfExists(journalPath(journalSeq));
+                }
+            } finally {
+                rotationLock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void restoreFlushing() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                // более новое изменение пары в pending важнее незаписанного
+                stripe.flushing.forEach((filmId, users) -> users.forEach((userId, liked) -> {
+                    if (stripe.pending.computeIfAbsent(filmId, id -> new HashMap<>()).putIfAbsent(userId, liked) == null) {
+                        pendingCount.incrementAndGet();
+                    }
+                }));
+                stripe.flushing = new HashMap<>();
+            }
+        }
+    }
+
+    private static int pendingDelta(Stripe stripe, int filmId) {
+        Map<Integer, Boolean> users = stripe.pending.get(filmId);
+        if (users == null) {
+            return 0;
+        }
+        int delta = 0;
+        for (Boolean liked : users.values()) {
+            delta += liked ? 1 : -1;
+        }
+        return delta;
+    }
+
+    private static void apply(Map<Integer, Boolean> users, Film film) {
+        if (users == null) {
+            return;
+        }
+        users.forEach((userId, liked) -> {
+            if (liked) {
+                film.addLike(userId);
+            } else {
+                film.removeLike(userId);
+            }
+        });
+    }
+
+    private static void apply(Map<Integer, Map<Integer, Boolean>> changes, int userId, IntBitmap likedFilmIds) {
+        changes.forEach((filmId, users) -> {
+            Boolean liked = users.get(userId);
+            if (liked != null) {
+                if (liked) {
+                    likedFilmIds.add(filmId.intValue());
+                } else {
+                    likedFilmIds.remove(filmId.intValue());
+                }
+            }
+        });
+    }
+
+    private Stripe stripe(int filmId) {
+        return stripes[Math.floorMod(filmId, STRIPES)];
+    }
+
+    private void appendToJournal(int filmId, int userId, boolean liked) {
+        byte[] line = ((liked ? "+ " : "- ") + filmId + " " + userId + "\n").getBytes(StandardCharsets.US_ASCII);
+        try {
+            // FileChannel допускает запись из нескольких потоков, строки не перемешиваются
+            journal.write(ByteBuffer.wrap(line));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать лайк в журнал", e);
+        }
+    }
+
+    private void openJournal(long seq) throws IOException {
+        journal = FileChannel.open(journalPath(seq),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        journalSeq = seq;
+    }
+
+    private void readJournal(Path path, Map<Long, LikeOperation> operations) throws IOException {
+        for (String line : Files.readAllLines(path, StandardCharsets.US_ASCII)) {
+            String[] parts = line.split(" ");
+            if (parts.length != 3 || !(parts[0].equals("+") || parts[0].equals("-"))) {
+                // последняя строка могла не дописаться при падении
+                log.warn("Пропущена некорректная строка журнала лайков {}: {}", path, line);
+                continue;
+            }
+            int filmId = Integer.parseInt(parts[1]);
+            int userId = Integer.parseInt(parts[2]);
+            LikeOperation.Op op = parts[0].equals("+") ? LikeOperation.Op.ADD : LikeOperation.Op.REMOVE;
+            operations.put(((long) filmId << 32) | (userId & 0xFFFFFFFFL), new LikeOperation(filmId, userId, op));
+        }
+    }
+
+    private List<Path> listJournals() throws IOException {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(JOURNAL_PREFIX)
+                            && path.getFileName().toString().endsWith(JOURNAL_SUFFIX))
+                    .sorted(Comparator.comparingLong(LikeWriteBuffer::seqOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void deleteJournals(long upToSeq) {
+        try {
+            for (Path path : listJournals()) {
+                if (seqOf(path) <= upToSeq) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            // повторное применение журнала ничего не меняет, поэтому файл можно удалить позже
+            log.warn("Не удалось удалить записанный журнал лайков", e);
+        }
+    }
+
+    private Path journalPath(long seq) {
+        return journalDir.resolve(JOURNAL_PREFIX + seq + JOURNAL_SUFFIX);
+    }
+
+    private static long seqOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(JOURNAL_PREFIX.length(), name.length() - JOURNAL_SUFFIX.length()));
+    }
+
+    private static final class Stripe {
+
+        // filmId -> userId -> нужное состояние лайка
+        private Map<Integer, Map<Integer, Boolean>> pending = new HashMap<>();
+        private Map<Integer, Map<Integer, Boolean>> flushing = new HashMap<>();
+
+        private Boolean get(Map<Integer, Map<Integer, Boolean>> changes, int filmId, int userId) {
+            Map<Integer, Boolean> users = changes.get(filmId);
+            return users == null ? null : users.get(userId);
+        }
+
+        private void remove(Map<Integer, Map<Integer, Boolean>> changes, int filmId, int userId) {
+            Map<Integer, Boolean> users = changes.get(filmId);
+            users.remove(userId);
+            if (users.isEmpty()) {
+                changes.remove(filmId);
+            }
+        }
+    }
+}
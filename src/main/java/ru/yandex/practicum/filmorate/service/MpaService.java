@@ -1,31 +1,34 @@
 package ru.yandex.practicum.filmorate.service;
 
-import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.MpaNotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
-import ru.yandex.practicum.filmorate.storage.dao.MpaDao;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 
 import java.util.Collection;
 
 @Service
 public class MpaService {
 
-    private final MpaDao mpaDao;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
-    public MpaService(MpaDao mpaDao) {
-        this.mpaDao = mpaDao;
+    public MpaService(ReferenceDataRegistry referenceDataRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
+    }
+
+    public long getVersion() {
+        return referenceDataRegistry.getVersion();
     }
 
     public Collection<Mpa> findAll() {
-        return mpaDao.findAll();
+        return referenceDataRegistry.getAllMpa();
     }
 
     public Mpa findMpaById(int id) {
-        try {
-            return mpaDao.findMpaById(id);
-        } catch (EmptyResultDataAccessException e) {
+        Mpa mpa = referenceDataRegistry.getMpa(id);
+        if (mpa == null) {
             throw new MpaNotFoundException("MPA with id " + id + " not found.");
         }
+        return mpa;
     }
 }
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Рейтинг фильмов по количеству лайков в памяти приложения.
+ * Заполняется из FILM.LIKE_COUNT при старте и дальше обновляется из {@link FilmService},
+ * поэтому порядок для /films/popular берется без обращения к базе.
+ */
+@Component
+@Slf4j
+public class PopularityLeaderboard {
+
+    private static final int STRIPES = 64;
+
+    private final FilmLikesDao filmLikesDao;
+
+    // ключ: (likeCount << 32) | (Integer.MAX_VALUE - filmId), при равенстве лайков выше фильм с меньшим id
+    private final NavigableSet<Long> ranking = new ConcurrentSkipListSet<>(Comparator.reverseOrder());
+    private final Map<Integer, Integer> likeCounts = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[STRIPES];
+
+    public PopularityLeaderboard(FilmLikesDao filmLikesDao) {
+        this.filmLikesDao = filmLikesDao;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void load() {
+        Map<Integer, Integer> counts = filmLikesDao.getLikeCounts();
+        counts.forEach(this::setLikeCount);
+        log.info("Рейтинг популярности загружен: {} фильмов", counts.size());
+    }
+
+    public void setLikeCount(int filmId, int likeCount) {
+        update(filmId, likes -> likeCount);
+    }
+
+    public void increment(int filmId) {
+        update(filmId, likes -> likes + 1);
+    }
+
+    public void decrement(int filmId) {
+        update(filmId, likes -> Math.max(0, likes - 1));
+    }
+
+    public List<Integer> getTop(int count) {
+        List<Integer> filmIds = new ArrayList<>(Math.max(0, Math.min(count, likeCounts.size())));
+        Set<Integer> seen = new HashSet<>();
+        for (Long key : ranking) {
+            if (filmIds.size() >= count) {
+                break;
+            }
+            // во время обновления фильм может ненадолго оказаться в рейтинге дважды
+            int filmId = filmId(key);
+            if (seen.add(filmId)) {
+                filmIds.add(filmId);
+            }
+        }
+        return filmIds;
+    }
+
+    private void update(int filmId, IntUnaryOperator change) {
+        synchronized (locks[Math.floorMod(filmId, STRIPES)]) {
+            Integer oldLikes = likeCounts.get(filmId);
+            int newLikes = change.applyAsInt(oldLikes == null ? 0 : oldLikes);
+            if (oldLikes != null && oldLikes == newLikes) {
+                return;
+            }
+            // сначала добавляем новый ключ, потом убираем старый: читатель не потеряет фильм
+            ranking.add(key(filmId, newLikes));
+            if (oldLikes != null) {
+                ranking.remove(key(filmId, oldLikes));
+            }
+            likeCounts.put(filmId, newLikes);
+        }
+    }
+
+    private static long key(int filmId, int likes) {
+        return ((long) likes << 32) | (Integer.MAX_VALUE - filmId);
+    }
+
+    private static int filmId(long key) {
+        return Integer.MAX_VALUE - (int) key;
+    }
+}
@@ -5,22 +5,36 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.serializer.SerializedJsonCache;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.storage.dao.FriendshipDao;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class UserService {
 
+    private static final int EXPORT_CHUNK_SIZE = 500;
+
     private final UserStorage userStorage;
     private final FriendshipDao friendshipDao;
+    private final FriendshipGraph friendshipGraph;
+    private final SerializedJsonCache userJsonCache;
 
-    public UserService(@Qualifier("UserDbStorage") UserStorage userStorage, FriendshipDao friendshipDao) {
+    public UserService(@Qualifier("UserDbStorage") UserStorage userStorage,
+                       FriendshipDao friendshipDao,
+                       FriendshipGraph friendshipGraph,
+                       @Qualifier("userJsonCache") SerializedJsonCache userJsonCache) {
         this.userStorage = userStorage;
         this.friendshipDao = friendshipDao;
+        this.friendshipGraph = friendshipGraph;
+        this.userJsonCache = userJsonCache;
     }
 
     public User createUser(User user) {
@@ -28,19 +42,21 @@ public class UserService {
         log.debug("Создан пользователь: {}, {}, {}, {}, {}",
                 userCreated.getId(), userCreated.getEmail(), userCreated.getLogin(), userCreated.getName(),
                 userCreated.getBirthday());
-        return findUserById(userCreated.getId());
+        return userCreated;
     }
 
     public User updateUser(User user) {
-        User userOriginal = this.findUserById(user.getId());
-        User userUpdated = userStorage.updateUser(user);
-        log.debug("Обновлен пользователь (старые данные): {}, {}, {}, {}, {}",
-                userOriginal.getId(), userOriginal.getEmail(), userOriginal.getLogin(), userOriginal.getName(),
-                userOriginal.getBirthday());
-        log.debug("Обновлен пользователь (новые данные): {}, {}, {}, {}, {}",
+        final User userUpdated;
+        try {
+            userUpdated = userStorage.updateUser(user);
+        } catch (EmptyResultDataAccessException e) {
+            throw new UserNotFoundException("Пользователя с id \"" + user.getId() + "\" нет в хранилище.");
+        }
+        userJsonCache.invalidate(userUpdated.getId());
+        log.debug("Обновлен пользователь: {}, {}, {}, {}, {}",
                 userUpdated.getId(), userUpdated.getEmail(), userUpdated.getLogin(), userUpdated.getName(),
                 userUpdated.getBirthday());
-        return findUserById(userUpdated.getId());
+        return userUpdated;
     }
 
     public List<User> findAll() {
@@ -49,6 +65,20 @@ public class UserService {
         return users;
     }
 
+    public Page<User> findPage(int afterId, int limit) {
+        Page.validateLimit(limit);
+        final Page<User> page = Page.of(userStorage.getUsers(afterId, limit + 1), limit, User::getId);
+        log.debug("Страница пользователей после id = {}: {} шт., следующий курсор: {}",
+                afterId, page.getItems().size(), page.getNextCursor());
+        return page;
+    }
+
+    public void exportUsers(Consumer<List<User>> chunkConsumer) {
+        log.debug("Начата выгрузка пользователей");
+        userStorage.streamUsers(EXPORT_CHUNK_SIZE, chunkConsumer);
+        log.debug("Выгрузка пользователей завершена");
+    }
+
     public User findUserById(int id) {
         try {
             final User user = userStorage.getUser(id);
@@ -60,16 +90,23 @@ public class UserService {
         }
     }
 
+    public int getUserVersion(int id) {
+        try {
+            return userStorage.getUserVersion(id);
+        } catch (EmptyResultDataAccessException e) {
+            throw new UserNotFoundException("Пользователя с id \"" + id + "\" нет в хранилище.");
+        }
+    }
+
     public void addFriend(int userId, int friendId) {
         final User user = this.findUserById(userId);
         final User friend = this.findUserById(friendId);
 
         friendshipDao.addFriend(user.getId(), friend.getId());
+        friendshipGraph.addFriend(user.getId(), friend.getId());
 
         log.debug("Пользователь id = {} отправил заявку в друзья пользователю id = {}.",
                 user.getId(), friend.getId());
-
-        userStorage.updateUser(user);
     }
 
     public void removeFriend(int userId, int friendId) {
@@ -77,17 +114,16 @@ public class UserService {
         final User friend = this.findUserById(friendId);
 
         friendshipDao.removeFriend(user.getId(), friend.getId());
+        friendshipGraph.removeFriend(user.getId(), friend.getId());
 
         log.debug("Пользователь id = {} удалил из друзей пользователя id =  {}.",
                 user.getId(), friend.getId());
-
-        userStorage.updateUser(user);
     }
 
     public List<User> getFriends(int id) {
         final User user = this.findUserById(id);
 
-        List<User> friends = friendshipDao.getFriends(user.getId());
+        List<User> friends = userStorage.getUsersByIds(friendshipGraph.getFriendIds(user.getId()));
 
         log.debug("Список друзей пользователя id = {}: {}.",
                 user.getId(), friends.toString());
@@ -95,16 +131,47 @@ public class UserService {
         return friends;
     }
 
+    public Page<User> getFriends(int id, int afterId, int limit) {
+        Page.validateLimit(limit);
+        final User user = this.findUserById(id);
+
+        final int[] friendIds = friendshipGraph.getFriendIds(user.getId());
+        int from = Arrays.binarySearch(friendIds, afterId);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int to = (int) Math.min(friendIds.length, (long) from + limit + 1);
+        final Page<User> friends = Page.of(userStorage.getUsersByIds(Arrays.copyOfRange(friendIds, from, to)),
+                limit, User::getId);
+
+        log.debug("Страница друзей пользователя id = {} после id = {}: {}.",
+                user.getId(), afterId, friends.getItems());
+
+        return friends;
+    }
+
     public List<User> getMutualFriends(int userId1, int userId2) {
 
         final User user1 = this.findUserById(userId1);
         final User user2 = this.findUserById(userId2);
 
-        List<User> mutualFriends = friendshipDao.getMutualFriends(user1.getId(), user2.getId());
+        List<User> mutualFriends = userStorage.getUsersByIds(
+                friendshipGraph.getMutualFriendIds(user1.getId(), user2.getId()));
 
         log.debug("Список общих друзей пользователей: id = {} и id = {}: {}",
                 user1.getId(), user2.getId(), mutualFriends.toString());
 
         return mutualFriends;
     }
+
+    public List<User> getSuggestedFriends(int id, int count) {
+        if (count < 1) {
+            throw new ValidationException("Количество рекомендаций должно быть больше 0: " + count);
+        }
+        final User user = this.findUserById(id);
+
+        List<User> suggestions = userStorage.getUsersByIds(friendshipGraph.getSuggestedFriendIds(user.getId(), count));
+
+        log.debug("Возможные друзья пользователя id = {}: {}.", user.getId(), suggestions);
+
+        return suggestions;
+    }
 }
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 
 public interface FilmStorage {
@@ -15,5 +16,20 @@ public interface FilmStorage {
 
     List<Film> getFilms();
 
+    List<Film> getFilms(int afterId, int limit);
+
+    /**
+     * Передает все фильмы, упорядоченные по id, пачками не больше {@code chunkSize}, не держа весь список в памяти.
+     * Список пачки переиспользуется, сохранять его после возврата из {@code chunkConsumer} нельзя.
+     */
+    void streamFilms(int chunkSize, Consumer<List<Film>> chunkConsumer);
+
     Film getFilm(int id);
+
+    /**
+     * Номер версии фильма без загрузки жанров и лайков. Растет при каждом изменении фильма и его лайков.
+     */
+    int getFilmVersion(int id);
+
+    List<Film> getFilmsByIds(List<Integer> ids);
 }
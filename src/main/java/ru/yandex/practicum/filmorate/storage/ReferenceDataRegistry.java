@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDao;
+import ru.yandex.practicum.filmorate.storage.dao.MpaDao;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Справочники MPA и GENRE в памяти приложения.
+ * Таблицы маленькие и меняются только через data.sql, поэтому читаются один раз при старте
+ * в массивы по id. На каждый id приходится один общий экземпляр {@link Mpa}/{@link Genre}.
+ * После ручного изменения справочников в базе нужно вызвать {@link #reload()}.
+ * {@link #getVersion()} зависит только от содержимого справочников и служит ETag для {@code /genres} и {@code /mpa}.
+ */
+@Component
+@Slf4j
+public class ReferenceDataRegistry {
+
+    private final MpaDao mpaDao;
+    private final GenreDao genreDao;
+
+    private volatile Snapshot snapshot = new Snapshot(List.of(), List.of());
+
+    public ReferenceDataRegistry(MpaDao mpaDao, GenreDao genreDao) {
+        this.mpaDao = mpaDao;
+        this.genreDao = genreDao;
+    }
+
+    @PostConstruct
+    public void reload() {
+        snapshot = new Snapshot(mpaDao.findAll(), genreDao.findAll());
+        log.info("Справочники загружены: MPA - {}, жанров - {}, версия {}",
+                snapshot.mpaList.size(), snapshot.genreList.size(), snapshot.version);
+    }
+
+    public long getVersion() {
+        return snapshot.version;
+    }
+
+    public List<Mpa> getAllMpa() {
+        return snapshot.mpaList;
+    }
+
+    public Mpa getMpa(int id) {
+        Mpa[] mpaById = snapshot.mpaById;
+        return id >= 0 && id < mpaById.length ? mpaById[id] : null;
+    }
+
+    public List<Genre> getAllGenres() {
+        return snapshot.genreList;
+    }
+
+    public Genre getGenre(int id) {
+        Genre[] genreById = snapshot.genreById;
+        return id >= 0 && id < genreById.length ? genreById[id] : null;
+    }
+
+    public boolean containsGenre(int id) {
+        return getGenre(id) != null;
+    }
+
+    private static final class Snapshot {
+
+        private final List<Mpa> mpaList;
+        private final Mpa[] mpaById;
+        private final List<Genre> genreList;
+        private final Genre[] genreById;
+        private final long version;
+
+        private Snapshot(List<Mpa> mpaList, List<Genre> genreList) {
+            this.mpaList = List.copyOf(mpaList);
+            this.genreList = List.copyOf(genreList);
+            this.version = Integer.toUnsignedLong(Objects.hash(this.mpaList, this.genreList));
+
+            int maxMpaId = 0;
+            for (Mpa mpa : mpaList) {
+                maxMpaId = Math.max(maxMpaId, mpa.getId());
+            }
+            this.mpaById = new Mpa[maxMpaId + 1];
+            for (Mpa mpa : mpaList) {
+                mpaById[mpa.getId()] = mpa;
+            }
+
+            int maxGenreId = 0;
+            for (Genre genre : genreList) {
+                maxGenreId = Math.max(maxGenreId, genre.getId());
+            }
+            this.genreById = new Genre[maxGenreId + 1];
+            for (Genre genre : genreList) {
+                genreById[genre.getId()] = genre;
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
@@ -14,5 +15,23 @@ public interface UserStorage {
 
     List<User> getUsers();
 
+    List<User> getUsers(int afterId, int limit);
+
+    /**
+     * Передает всех пользователей, упорядоченных по id, пачками не больше {@code chunkSize}.
+     * Список пачки переиспользуется, сохранять его после возврата из {@code chunkConsumer} нельзя.
+     */
+    void streamUsers(int chunkSize, Consumer<List<User>> chunkConsumer);
+
     User getUser(int id);
+
+    /**
+     * Номер версии пользователя, растет при каждом изменении.
+     */
+    int getUserVersion(int id);
+
+    /**
+     * Пользователи в порядке переданных id, отсутствующие id пропускаются.
+     */
+    List<User> getUsersByIds(int[] ids);
 }
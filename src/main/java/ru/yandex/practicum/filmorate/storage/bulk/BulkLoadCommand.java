@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage.bulk;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.Banner;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Консольный режим {@code bulk-load}: загружает файлы в базу из application.properties без веб-сервера
+ * и кешей приложения, поднимая только DataSource и инициализацию схемы.
+ * Запуск: java -jar filmorate.jar bulk-load --film=films.csv --film-likes=likes.ndjson [--batch-size=500]
+ * Код выхода 0 - загрузка зафиксирована, 1 - ошибка загрузки (транзакция откатывается), 2 - неверные аргументы.
+ * Класс намеренно не {@code @Configuration}, чтобы не попасть в сканирование основного приложения.
+ */
+@ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+        JdbcTemplateAutoConfiguration.class, SqlInitializationAutoConfiguration.class})
+@Slf4j
+public class BulkLoadCommand {
+
+    public static final String NAME = "bulk-load";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    /**
+     * @param args аргументы после {@code bulk-load}; остальные {@code --ключ=значение} доходят до Spring,
+     *             например {@code --spring.datasource.url}
+     * @return код выхода процесса
+     */
+    public static int run(String... args) {
+        Map<BulkTable, Path> files = new EnumMap<>(BulkTable.class);
+        int batchSize;
+        try {
+            ApplicationArguments arguments = new DefaultApplicationArguments(args);
+            for (BulkTable table : BulkTable.values()) {
+                String file = singleOption(arguments, table.optionName());
+                if (file != null) {
+                    files.put(table, Path.of(file));
+                }
+            }
+            String batchOption = singleOption(arguments, "batch-size");
+            batchSize = batchOption == null ? DEFAULT_BATCH_SIZE : Integer.parseInt(batchOption);
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("Не указано ни одного файла, опции: --film, --user-account, " +
+                        "--film-genre, --film-likes, --friendship");
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("{}", e.getMessage());
+            return 2;
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BulkLoadCommand.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .run(args)) {
+            new BulkLoader(context.getBean(JdbcTemplate.class), context.getBean(PlatformTransactionManager.class),
+                    batchSize).load(files);
+            return 0;
+        } catch (RuntimeException e) {
+            log.error("Загрузка не выполнена", e);
+            return 1;
+        }
+    }
+
+    private static String singleOption(ApplicationArguments arguments, String name) {
+        List<String> values = arguments.getOptionValues(name);
+        if (values == null) {
+            return null;
+        }
+        if (values.size() != 1 || values.get(0).isBlank()) {
+            throw new IllegalArgumentException("Опция --" + name + " должна быть указана один раз и со значением");
+        }
+        return values.get(0);
+    }
+}
@@ -0,0 +1,266 @@
+package ru.yandex.practicum.filmorate.storage.bulk;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Загрузка больших объемов данных из файлов напрямую в таблицы, минуя API и проверки модели.
+ * CSV с заголовком читает сама H2 через {@code CSVREAD} одним {@code INSERT ... SELECT},
+ * NDJSON вставляется многострочными {@code INSERT} по {@code batchSize} строк.
+ * Все файлы загружаются в одной транзакции: фиксация частями у H2 быстрее, но ошибка в последнем файле
+ * оставила бы в базе половину данных. На время загрузки у таблиц отключаются внешние ключи,
+ * а вторичные индексы удаляются; перед фиксацией ключи проверяются разом по всей таблице,
+ * после - индексы строятся заново. Рассчитано на остановленное приложение: другие сессии
+ * в это время увидели бы таблицы без индексов и проверок.
+ */
+@Slf4j
+public class BulkLoader {
+
+    // обычные индексы загружаемых таблиц, кроме тех, на которые опираются ограничения
+    private static final String SECONDARY_INDEXES = "SELECT i.TABLE_NAME, i.INDEX_NAME, c.COLUMN_NAME, " +
+            "c.ORDERING_SPECIFICATION " +
+            "FROM INFORMATION_SCHEMA.INDEXES i " +
+            "JOIN INFORMATION_SCHEMA.INDEX_COLUMNS c ON c.INDEX_SCHEMA = i.INDEX_SCHEMA " +
+            "AND c.INDEX_NAME = i.INDEX_NAME " +
+            "WHERE i.TABLE_SCHEMA = SCHEMA() AND i.TABLE_NAME = ANY(?) AND i.INDEX_TYPE_NAME = 'INDEX' " +
+            "AND NOT EXISTS(SELECT 1 FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS tc " +
+            "WHERE tc.INDEX_SCHEMA = i.INDEX_SCHEMA AND tc.INDEX_NAME = i.INDEX_NAME) " +
+            "ORDER BY i.INDEX_NAME, c.ORDINAL_POSITION";
+
+    // одна группировка по FILM_LIKES вместо двух подзапросов на каждый фильм, как в FilmLikesDao.reconcileLikeCounts;
+    // загрузка только добавляет лайки, поэтому фильмы без лайков пересчитывать не нужно
+    private static final String UPDATE_LIKE_COUNTS = "MERGE INTO FILM f " +
+            "USING (SELECT FILM_ID, COUNT(*) AS LIKES FROM FILM_LIKES GROUP BY FILM_ID) fl ON f.ID = fl.FILM_ID " +
+            "WHEN MATCHED AND f.LIKE_COUNT <> fl.LIKES THEN UPDATE SET LIKE_COUNT = fl.LIKES, VERSION = VERSION + 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final ObjectReader ndjsonReader = new ObjectMapper().readerFor(new TypeReference<Map<String, Object>>() {
+    });
+
+    public BulkLoader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным: " + batchSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Загружает файлы в таблицы в порядке {@link BulkTable}. Формат определяется по расширению:
+     * {@code .csv}, {@code .ndjson} или {@code .jsonl}. Если хоть один файл не загрузился
+     * или нарушен внешний ключ, откатывается вся загрузка.
+     *
+     * @return число загруженных строк
+     */
+    public long load(Map<BulkTable, Path> files) {
+        Map<BulkTable, Path> ordered = new EnumMap<>(files);
+        ordered.values().forEach(BulkLoader::requireReadable);
+        long start = System.nanoTime();
+        List<String> indexes = dropSecondaryIndexes(ordered.keySet());
+        long rows;
+        try {
+            rows = Objects.requireNonNull(transactionTemplate.execute(status -> {
+                ordered.keySet().forEach(table -> setReferentialIntegrity(table, "FALSE"));
+                long loaded = 0;
+                for (Map.Entry<BulkTable, Path> entry : ordered.entrySet()) {
+                    loaded += loadFile(entry.getKey(), entry.getValue());
+                }
+                long checkStart = System.nanoTime();
+                ordered.keySet().forEach(table -> setReferentialIntegrity(table, "TRUE CHECK"));
+                log.info("Внешние ключи проверены за {} мс", millis(checkStart));
+                if (ordered.containsKey(BulkTable.FILM_LIKES)) {
+                    long countStart = System.nanoTime();
+                    log.info("Пересчитан LIKE_COUNT у {} фильмов за {} мс", jdbcTemplate.update(UPDATE_LIKE_COUNTS),
+                            millis(countStart));
+                }
+                return loaded;
+            }));
+        } finally {
+            // после отката проверять нечего, после фиксации все уже проверено
+            ordered.keySet().forEach(table -> setReferentialIntegrity(table, "TRUE"));
+            long indexStart = System.nanoTime();
+            indexes.forEach(jdbcTemplate::execute);
+            log.info("Индексов построено: {} за {} мс", indexes.size(), millis(indexStart));
+        }
+        restartIdentity(ordered.keySet());
+        long nanos = System.nanoTime() - start;
+        log.info("Загружено {} строк за {} мс ({} строк/с)", rows, nanos / 1_000_000, perSecond(rows, nanos));
+        return rows;
+    }
+
+    private long loadFile(BulkTable table, Path file) {
+        long start = System.nanoTime();
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        long rows;
+        if (name.endsWith(".csv")) {
+            rows = loadCsv(table, file);
+        } else if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            try {
+                rows = loadNdjson(table, file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось прочитать " + file, e);
+            }
+        } else {
+            throw new IllegalArgumentException("Неизвестный формат файла " + file + ", нужен .csv, .ndjson или .jsonl");
+        }
+        long nanos = System.nanoTime() - start;
+        log.info("{}: {} строк из {} за {} мс ({} строк/с)", table, rows, file, nanos / 1_000_000,
+                perSecond(rows, nanos));
+        return rows;
+    }
+
+    private long loadCsv(BulkTable table, Path file) {
+        String source = "CSVREAD('" + file.toAbsolutePath().toString().replace("'", "''") +
+                "', NULL, 'charset=UTF-8')";
+        // заголовок разбирает сама H2, имена колонок CSVREAD приводит к верхнему регистру
+        List<String> fields = jdbcTemplate.query("SELECT * FROM " + source + " LIMIT 0", rs -> {
+            List<String> labels = new ArrayList<>();
+            for (int i = 1; i <= rs.getMetaData().getColumnCount(); i++) {
+                labels.add(rs.getMetaData().getColumnLabel(i));
+            }
+            return labels;
+        });
+        List<String> columns = targetColumns(table, Objects.requireNonNull(fields));
+        List<String> values = new ArrayList<>();
+        fields.forEach(field -> values.add(quote(field)));
+        values.addAll(defaultValues(table, columns, fields.size()));
+        return jdbcTemplate.update("INSERT INTO " + table + " (" + String.join(", ", columns) + ") " +
+                "SELECT " + String.join(", ", values) + " FROM " + source);
+    }
+
+    private long loadNdjson(BulkTable table, Path file) throws IOException {
+        long rows = 0;
+        List<String> fields = null;
+        List<String> columns = null;
+        String tuple = null;
+        List<Object> args = new ArrayList<>();
+        int batched = 0;
+        try (MappingIterator<Map<String, Object>> records = ndjsonReader.readValues(file.toFile())) {
+            while (records.hasNext()) {
+                Map<String, Object> record = records.next();
+                if (fields == null) {
+                    // набор колонок задает первая строка
+                    fields = new ArrayList<>(record.keySet());
+                    columns = targetColumns(table, fields);
+                    List<String> values = new ArrayList<>(Collections.nCopies(fields.size(), "?"));
+                    values.addAll(defaultValues(table, columns, fields.size()));
+                    tuple = "(" + String.join(", ", values) + ")";
+                }
+                if (!fields.containsAll(record.keySet())) {
+                    throw new IllegalArgumentException("В строке " + (rows + batched + 1) + " файла " + file +
+                            " поля " + record.keySet() + ", а в первой строке " + fields);
+                }
+                for (String field : fields) {
+                    args.add(record.get(field));
+                }
+                if (++batched == batchSize) {
+                    rows += insertRows(table, columns, tuple, batched, args);
+                    args.clear();
+                    batched = 0;
+                }
+            }
+        }
+        if (batched > 0) {
+            rows += insertRows(table, columns, tuple, batched, args);
+        }
+        return rows;
+    }
+
+    private int insertRows(BulkTable table, List<String> columns, String tuple, int count, List<Object> args) {
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES " +
+                String.join(", ", Collections.nCopies(count, tuple));
+        return jdbcTemplate.update(sql, args.toArray());
+    }
+
+    /**
+     * Удаляет вторичные индексы таблиц и возвращает команды, которые их восстановят. Если процесс упадет
+     * до восстановления, индексы из schema.sql и миграций все равно появятся при следующем старте приложения.
+     */
+    private List<String> dropSecondaryIndexes(Set<BulkTable> tables) {
+        Map<String, String> tableByIndex = new LinkedHashMap<>();
+        Map<String, List<String>> columnsByIndex = new HashMap<>();
+        jdbcTemplate.query(SECONDARY_INDEXES,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("VARCHAR",
+                        tables.stream().map(BulkTable::name).toArray())),
+                (RowCallbackHandler) rs -> {
+                    String index = rs.getString("INDEX_NAME");
+                    tableByIndex.put(index, rs.getString("TABLE_NAME"));
+                    columnsByIndex.computeIfAbsent(index, key -> new ArrayList<>())
+                            .add(quote(rs.getString("COLUMN_NAME")) + " " + rs.getString("ORDERING_SPECIFICATION"));
+                });
+        List<String> creates = new ArrayList<>();
+        tableByIndex.forEach((index, table) -> {
+            jdbcTemplate.execute("DROP INDEX " + quote(index));
+            creates.add("CREATE INDEX IF NOT EXISTS " + quote(index) + " ON " + quote(table) +
+                    " (" + String.join(", ", columnsByIndex.get(index)) + ")");
+        });
+        log.info("Индексов удалено на время загрузки: {} {}", creates.size(), tableByIndex.keySet());
+        return creates;
+    }
+
+    // выполняется и внутри транзакции: H2 не фиксирует ее на этой команде
+    private void setReferentialIntegrity(BulkTable table, String mode) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " SET REFERENTIAL_INTEGRITY " + mode);
+    }
+
+    // H2 не сдвигает счетчик ID при вставке явных значений, иначе следующий POST получил бы занятый id
+    private void restartIdentity(Set<BulkTable> tables) {
+        for (BulkTable table : tables) {
+            if (table == BulkTable.FILM || table == BulkTable.USER_ACCOUNT) {
+                Integer next = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(ID), 0) + 1 FROM " + table,
+                        Integer.class);
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN ID RESTART WITH " + next);
+            }
+        }
+    }
+
+    // колонки INSERT: сначала поля файла, затем недостающие колонки со значениями по умолчанию
+    private static List<String> targetColumns(BulkTable table, List<String> fields) {
+        List<String> columns = new ArrayList<>();
+        fields.forEach(field -> columns.add(table.column(field)));
+        table.defaults().keySet().stream()
+                .filter(column -> !columns.contains(column))
+                .forEach(columns::add);
+        return columns;
+    }
+
+    private static List<String> defaultValues(BulkTable table, List<String> columns, int fieldCount) {
+        List<String> values = new ArrayList<>();
+        columns.subList(fieldCount, columns.size()).forEach(column -> values.add(table.defaults().get(column)));
+        return values;
+    }
+
+    private static void requireReadable(Path file) {
+        if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+            throw new IllegalArgumentException("Файл " + file + " не найден или недоступен для чтения");
+        }
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static long millis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    private static long perSecond(long rows, long nanos) {
+        return nanos == 0 ? rows : rows * 1_000_000_000L / nanos;
+    }
+}
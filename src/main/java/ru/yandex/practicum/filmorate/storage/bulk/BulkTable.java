@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.storage.bulk;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Таблицы, которые можно заполнить из файла, и колонки, допустимые в файле.
+ * LIKE_COUNT и VERSION фильма не загружаются: счетчик лайков пересчитывается после загрузки.
+ */
+public enum BulkTable {
+
+    FILM(List.of("ID", "NAME", "DESCRIPTION", "MPA_ID", "RELEASE_DATE", "DURATION"), Map.of()),
+    USER_ACCOUNT(List.of("ID", "EMAIL", "LOGIN", "NAME", "BIRTHDAY"), Map.of()),
+    FILM_GENRE(List.of("FILM_ID", "GENRE_ID"), Map.of()),
+    FILM_LIKES(List.of("FILM_ID", "USER_ID"), Map.of()),
+    FRIENDSHIP(List.of("USER_ID", "FRIEND_ID", "FRIEND_STATUS_CONFIRM"), Map.of("FRIEND_STATUS_CONFIRM", "FALSE"));
+
+    private final List<String> columns;
+    // значения колонок, которых нет в файле, в виде выражений SQL
+    private final Map<String, String> defaults;
+
+    BulkTable(List<String> columns, Map<String, String> defaults) {
+        this.columns = columns;
+        this.defaults = defaults;
+    }
+
+    /**
+     * Имя опции командной строки: {@code film}, {@code user-account}, {@code film-genre} и т.д.
+     */
+    public String optionName() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Колонка таблицы по заголовку CSV или ключу NDJSON без учета регистра.
+     *
+     * @throws IllegalArgumentException если такой колонки нет среди допустимых
+     */
+    String column(String field) {
+        String column = field.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        if (!columns.contains(column)) {
+            throw new IllegalArgumentException("Колонки \"" + field + "\" нет в " + name() + ", допустимы: " + columns);
+        }
+        return column;
+    }
+
+    Map<String, String> defaults() {
+        return defaults;
+    }
+}
@@ -1,30 +1,56 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.mapper.FilmMapper;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 
-import java.util.List;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("FilmDbStorage")
+@Timed("filmorate.dao")
 public class FilmDbStorage implements FilmStorage {
 
+    private static final String SELECT_FILM = "SELECT f.* FROM FILM f";
+    private static final String INSERT_FILM = "INSERT INTO FILM (NAME, DESCRIPTION, MPA_ID, RELEASE_DATE, DURATION) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final FilmMapper filmMapper;
+    private final PreparedStatementCreatorFactory insertFilm;
 
-    public FilmDbStorage(JdbcTemplate jdbcTemplate) {
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, ReferenceDataRegistry referenceDataRegistry) {
         this.jdbcTemplate = jdbcTemplate;
+        this.filmMapper = new FilmMapper(referenceDataRegistry, new GenreDao(jdbcTemplate),
+                new FilmLikesDao(jdbcTemplate));
+        this.insertFilm = new PreparedStatementCreatorFactory(INSERT_FILM,
+                Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.DATE, Types.INTEGER);
+        this.insertFilm.setGeneratedKeysColumnNames("ID");
     }
 
     @Override
     public Film addFilm(Film film) {
-        SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("film")
-                .usingGeneratedKeyColumns("id");
-        int id = insert.executeAndReturnKey(film.toMap()).intValue();
-        return getFilm(id);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(insertFilm.newPreparedStatementCreator(Arrays.asList(film.getName(),
+                film.getDescription(), film.getMpa().getId(), film.getReleaseDate(),
+                film.getDuration().toSeconds())), keyHolder);
+        film.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+        film.setVersion(0);
+        return film;
     }
 
     @Override
@@ -35,23 +61,89 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public Film updateFilm(Film film) {
-        String sql = "UPDATE FILM SET NAME = ?, DESCRIPTION = ?, RELEASE_DATE = ?, DURATION = ?, MPA_ID = ? WHERE ID = ?";
-        jdbcTemplate.update(sql, film.getName(), film.getDescription(), film.getReleaseDate().toString(),
+        String sql = "UPDATE FILM SET NAME = ?, DESCRIPTION = ?, RELEASE_DATE = ?, DURATION = ?, MPA_ID = ?, " +
+                "VERSION = VERSION + 1 WHERE ID = ?";
+        int updated = jdbcTemplate.update(sql, film.getName(), film.getDescription(), film.getReleaseDate().toString(),
                 film.getDuration().toSeconds(), film.getMpa().getId(), film.getId());
-        return getFilm(film.getId());
+        if (updated == 0) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        // новая версия без повторного чтения неизвестна
+        film.setVersion(null);
+        return film;
     }
 
     @Override
     public List<Film> getFilms() {
-        String sql = "SELECT * FROM FILM";
-        return jdbcTemplate.query(sql, new FilmMapper(new MpaDao(jdbcTemplate), new GenreDao(jdbcTemplate),
-                new FilmLikesDao(jdbcTemplate)));
+        String sql = SELECT_FILM + " ORDER BY f.ID";
+        return filmMapper.hydrate(jdbcTemplate.query(sql, filmMapper));
+    }
+
+    @Override
+    public List<Film> getFilms(int afterId, int limit) {
+        String sql = SELECT_FILM + " WHERE f.ID > ? ORDER BY f.ID LIMIT ?";
+        return filmMapper.hydrate(jdbcTemplate.query(sql, filmMapper, afterId, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamFilms(int chunkSize, Consumer<List<Film>> chunkConsumer) {
+        String sql = SELECT_FILM + " ORDER BY f.ID";
+        PreparedStatementCreator cursor = connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(chunkSize);
+            return ps;
+        };
+        try (Stream<Film> films = jdbcTemplate.queryForStream(cursor, filmMapper)) {
+            List<Film> chunk = new ArrayList<>(chunkSize);
+            films.forEachOrdered(film -> {
+                chunk.add(film);
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(filmMapper.hydrate(chunk));
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(filmMapper.hydrate(chunk));
+            }
+        }
     }
 
     @Override
     public Film getFilm(int id) {
-        String sql = "SELECT * FROM FILM WHERE ID = ?";
-        return jdbcTemplate.queryForObject(sql, new FilmMapper(new MpaDao(jdbcTemplate), new GenreDao(jdbcTemplate),
-                new FilmLikesDao(jdbcTemplate)), id);
+        String sql = SELECT_FILM + " WHERE f.ID = ?";
+        Film film = jdbcTemplate.queryForObject(sql, filmMapper, id);
+        filmMapper.hydrate(Collections.singletonList(film));
+        return film;
+    }
+
+    @Override
+    public int getFilmVersion(int id) {
+        String sql = "SELECT VERSION FROM FILM WHERE ID = ?";
+        return jdbcTemplate.queryForObject(sql, Integer.class, id);
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String sql = SELECT_FILM + " WHERE f.ID = ANY(?)";
+        Map<Integer, Film> filmsById = new HashMap<>();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", ids.toArray())),
+                (RowCallbackHandler) rs -> {
+                    Film film = filmMapper.mapRow(rs, 0);
+                    filmsById.put(film.getId(), film);
+                });
+
+        List<Film> films = new ArrayList<>(filmsById.size());
+        for (Integer id : ids) {
+            Film film = filmsById.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return filmMapper.hydrate(films);
     }
 }
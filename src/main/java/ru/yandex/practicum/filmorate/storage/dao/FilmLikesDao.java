@@ -1,15 +1,17 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
-import ru.yandex.practicum.filmorate.mapper.FilmMapper;
-import ru.yandex.practicum.filmorate.model.Film;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 @Repository
+@Timed("filmorate.dao")
 public class FilmLikesDao {
 
     private final JdbcTemplate jdbcTemplate;
@@ -18,29 +20,23 @@ public class FilmLikesDao {
         this.jdbcTemplate = jdbcTemplate;
     }
 
+    @Transactional
     public void addLike(int filmId, int userId) {
         String sql = "INSERT INTO FILM_LIKES (FILM_ID, USER_ID) VALUES (?, ?)";
         jdbcTemplate.update(sql, filmId, userId);
+        String sqlCount = "UPDATE FILM SET LIKE_COUNT = LIKE_COUNT + 1, VERSION = VERSION + 1 WHERE ID = ?";
+        jdbcTemplate.update(sqlCount, filmId);
     }
 
-    public void removeLike(int filmId, int userId) {
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
         String sql = "DELETE FROM FILM_LIKES WHERE FILM_ID = ? AND USER_ID = ?";
-        jdbcTemplate.update(sql, filmId, userId);
-    }
-
-    public List<Film> getMostPopularFilms(int count) {
-        String sql = "SELECT f.ID, " +
-                "f.NAME, " +
-                "f.DESCRIPTION, " +
-                "f.RELEASE_DATE, " +
-                "f.DURATION, " +
-                "f.MPA_ID " +
-                "FROM FILM f " +
-                "LEFT JOIN FILM_LIKES AS fl ON f.ID = fl.FILM_ID " +
-                "GROUP BY f.NAME, f.ID " +
-                "ORDER BY COUNT(fl.USER_ID) DESC " +
-                "LIMIT ?";
-        return jdbcTemplate.query(sql, new FilmMapper(new MpaDao(jdbcTemplate), new GenreDao(jdbcTemplate), new FilmLikesDao(jdbcTemplate)), count);
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
+        String sqlCount = "UPDATE FILM SET LIKE_COUNT = LIKE_COUNT - 1, VERSION = VERSION + 1 WHERE ID = ?";
+        jdbcTemplate.update(sqlCount, filmId);
+        return true;
     }
 
     public List<Integer> findLikesByFilmId(int filmId) {
@@ -49,12 +45,156 @@ public class FilmLikesDao {
                 (rsLike, rowNumLike) -> rsLike.getInt("user_id"), filmId);
     }
 
+    public Map<Integer, IntBitmap> findLikesByFilmIds(Collection<Integer> filmIds) {
+        String sql = "SELECT fl.FILM_ID, fl.USER_ID FROM FILM_LIKES fl WHERE fl.FILM_ID = ANY(?) " +
+                "ORDER BY fl.FILM_ID, fl.USER_ID";
+        Map<Integer, IntBitmap> likesByFilmId = new HashMap<>();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", filmIds.toArray())),
+                (RowCallbackHandler) rs -> likesByFilmId
+                        .computeIfAbsent(rs.getInt("film_id"), id -> new IntBitmap())
+                        .add(rs.getInt("user_id")));
+        return likesByFilmId;
+    }
+
+    /**
+     * Все лайки по фильмам одним проходом по FILM_LIKES.
+     */
+    public Map<Integer, IntBitmap> findAllLikes() {
+        String sql = "SELECT fl.FILM_ID, fl.USER_ID FROM FILM_LIKES fl";
+        Map<Integer, IntBitmap> likesByFilmId = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> likesByFilmId
+                .computeIfAbsent(rs.getInt("film_id"), id -> new IntBitmap())
+                .add(rs.getInt("user_id")));
+        return likesByFilmId;
+    }
+
+    public IntBitmap findFilmIdsByUserId(int userId) {
+        String sql = "SELECT fl.FILM_ID FROM FILM_LIKES fl WHERE fl.USER_ID = ?";
+        IntBitmap filmIds = new IntBitmap();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> filmIds.add(rs.getInt("film_id")), userId);
+        return filmIds;
+    }
+
+    @Transactional
     public void updateFilmLikes(int filmId, Collection<Integer> likes) {
+        if (likes.isEmpty()) {
+            return;
+        }
         String sql = "MERGE INTO FILM_LIKES (FILM_ID, USER_ID) VALUES (?, ?)";
         List<Object[]> parameters = new ArrayList<>();
         for (Integer userId : likes) {
             parameters.add(new Object[]{filmId, userId});
         }
         jdbcTemplate.batchUpdate(sql, parameters);
+
+        String sqlCount = "UPDATE FILM SET LIKE_COUNT = (SELECT COUNT(*) FROM FILM_LIKES WHERE FILM_ID = ?), " +
+                "VERSION = VERSION + 1 WHERE ID = ?";
+        jdbcTemplate.update(sqlCount, filmId, filmId);
+    }
+
+    public IntBitmap findExistingFilmIds(Collection<Integer> filmIds) {
+        return findExistingIds("SELECT ID FROM FILM WHERE ID = ANY(?)", filmIds);
+    }
+
+    public IntBitmap findExistingUserIds(Collection<Integer> userIds) {
+        return findExistingIds("SELECT ID FROM USER_ACCOUNT WHERE ID = ANY(?)", userIds);
+    }
+
+    /**
+     * Лайки, которые пользователи из {@code userIds} поставили фильмам из {@code filmIds}.
+     */
+    public Map<Integer, IntBitmap> findLikes(Collection<Integer> filmIds, Collection<Integer> userIds) {
+        String sql = "SELECT fl.FILM_ID, fl.USER_ID FROM FILM_LIKES fl WHERE fl.FILM_ID = ANY(?) AND fl.USER_ID = ANY(?)";
+        Map<Integer, IntBitmap> likesByFilmId = new HashMap<>();
+        jdbcTemplate.query(sql,
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", filmIds.toArray()));
+                    ps.setArray(2, ps.getConnection().createArrayOf("INTEGER", userIds.toArray()));
+                },
+                (RowCallbackHandler) rs -> likesByFilmId
+                        .computeIfAbsent(rs.getInt("film_id"), id -> new IntBitmap())
+                        .add(rs.getInt("user_id")));
+        return likesByFilmId;
+    }
+
+    /**
+     * Применяет пакет лайков: добавления одним батчем MERGE, снятия одним батчем DELETE,
+     * затем пересчитывает LIKE_COUNT затронутых фильмов.
+     * Повторное применение того же пакета ничего не меняет.
+     *
+     * @return новые значения LIKE_COUNT затронутых фильмов
+     */
+    @Transactional
+    public Map<Integer, Integer> applyLikes(Collection<LikeOperation> operations) {
+        List<Object[]> added = new ArrayList<>();
+        List<Object[]> removed = new ArrayList<>();
+        Set<Integer> filmIds = new HashSet<>();
+        for (LikeOperation operation : operations) {
+            Object[] parameters = {operation.getFilmId(), operation.getUserId()};
+            if (operation.getOp() == LikeOperation.Op.ADD) {
+                added.add(parameters);
+            } else {
+                removed.add(parameters);
+            }
+            filmIds.add(operation.getFilmId());
+        }
+        if (!added.isEmpty()) {
+            jdbcTemplate.batchUpdate("MERGE INTO FILM_LIKES (FILM_ID, USER_ID) VALUES (?, ?)", added);
+        }
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM FILM_LIKES WHERE FILM_ID = ? AND USER_ID = ?", removed);
+        }
+        if (filmIds.isEmpty()) {
+            return Map.of();
+        }
+
+        String sqlCount = "UPDATE FILM f SET LIKE_COUNT = (SELECT COUNT(*) FROM FILM_LIKES fl WHERE fl.FILM_ID = f.ID), " +
+                "VERSION = VERSION + 1 WHERE f.ID = ANY(?)";
+        jdbcTemplate.update(sqlCount,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", filmIds.toArray())));
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query("SELECT ID, LIKE_COUNT FROM FILM WHERE ID = ANY(?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", filmIds.toArray())),
+                (RowCallbackHandler) rs -> likeCounts.put(rs.getInt("id"), rs.getInt("like_count")));
+        return likeCounts;
+    }
+
+    /**
+     * Счетчики лайков всех фильмов из FILM.LIKE_COUNT, без агрегации по FILM_LIKES.
+     */
+    public Map<Integer, Integer> getLikeCounts() {
+        String sql = "SELECT f.ID, f.LIKE_COUNT FROM FILM f";
+        Map<Integer, Integer> likeCounts = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> likeCounts.put(rs.getInt("id"), rs.getInt("like_count")));
+        return likeCounts;
+    }
+
+    public int getLikeCount(int filmId) {
+        String sql = "SELECT LIKE_COUNT FROM FILM WHERE ID = ?";
+        return jdbcTemplate.queryForObject(sql, Integer.class, filmId);
+    }
+
+    /**
+     * Пересчитывает LIKE_COUNT по FILM_LIKES.
+     *
+     * @return количество фильмов, у которых счетчик расходился с таблицей лайков
+     */
+    @Transactional
+    public int reconcileLikeCounts() {
+        String sql = "UPDATE FILM f SET LIKE_COUNT = (SELECT COUNT(*) FROM FILM_LIKES fl WHERE fl.FILM_ID = f.ID), " +
+                "VERSION = VERSION + 1 WHERE f.LIKE_COUNT <> (SELECT COUNT(*) FROM FILM_LIKES fl WHERE fl.FILM_ID = f.ID)";
+        return jdbcTemplate.update(sql);
+    }
+
+    private IntBitmap findExistingIds(String sql, Collection<Integer> ids) {
+        IntBitmap existing = new IntBitmap();
+        if (ids.isEmpty()) {
+            return existing;
+        }
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", ids.toArray())),
+                (RowCallbackHandler) rs -> existing.add(rs.getInt("id")));
+        return existing;
     }
 }
@@ -1,13 +1,19 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Repository
+@Timed("filmorate.dao")
 public class FriendshipDao {
 
     private final JdbcTemplate jdbcTemplate;
@@ -17,7 +23,12 @@ public class FriendshipDao {
     }
 
     public void addFriend(int userId, int friendId) {
-        String sql = "INSERT INTO FRIENDSHIP (USER_ID, FRIEND_ID, FRIEND_STATUS_CONFIRM) VALUES (?, ?, ?)";
+        // повторное добавление не трогает существующую строку и ее FRIEND_STATUS_CONFIRM
+        String sql = "MERGE INTO FRIENDSHIP f " +
+                "USING (VALUES (CAST(? AS INTEGER), CAST(? AS INTEGER))) v(USER_ID, FRIEND_ID) " +
+                "ON f.USER_ID = v.USER_ID AND f.FRIEND_ID = v.FRIEND_ID " +
+                "WHEN NOT MATCHED THEN INSERT (USER_ID, FRIEND_ID, FRIEND_STATUS_CONFIRM) " +
+                "VALUES (v.USER_ID, v.FRIEND_ID, ?)";
         boolean isConfirmFriendship = false;
         jdbcTemplate.update(sql, userId, friendId, isConfirmFriendship);
     }
@@ -27,16 +38,35 @@ public class FriendshipDao {
         jdbcTemplate.update(sql, userId, friendId);
     }
 
+    public Map<Integer, List<Integer>> findAllFriendIds() {
+        String sql = "SELECT f.USER_ID, f.FRIEND_ID FROM FRIENDSHIP f";
+        Map<Integer, List<Integer>> friendIds = new HashMap<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> friendIds
+                .computeIfAbsent(rs.getInt("user_id"), id -> new ArrayList<>())
+                .add(rs.getInt("friend_id")));
+        return friendIds;
+    }
+
     public List<User> getFriends(int userId) {
-        String sql = "SELECT u.ID, u.EMAIL, u.LOGIN, u.NAME, u.BIRTHDAY " +
+        String sql = "SELECT u.ID, u.EMAIL, u.LOGIN, u.NAME, u.BIRTHDAY, u.VERSION " +
                 "FROM USER_ACCOUNT u " +
                 "JOIN FRIENDSHIP f ON u.ID = f.FRIEND_ID " +
                 "WHERE f.USER_ID = ?";
         return jdbcTemplate.query(sql, new UserMapper(), userId);
     }
 
+    public List<User> getFriends(int userId, int afterId, int limit) {
+        String sql = "SELECT u.ID, u.EMAIL, u.LOGIN, u.NAME, u.BIRTHDAY, u.VERSION " +
+                "FROM USER_ACCOUNT u " +
+                "JOIN FRIENDSHIP f ON u.ID = f.FRIEND_ID " +
+                "WHERE f.USER_ID = ? AND f.FRIEND_ID > ? " +
+                "ORDER BY f.FRIEND_ID " +
+                "LIMIT ?";
+        return jdbcTemplate.query(sql, new UserMapper(), userId, afterId, limit);
+    }
+
     public List<User> getMutualFriends(int userId1, int userId2) {
-        String sql = "SELECT u.ID as friend_id, u.EMAIL, u.LOGIN, u.NAME, u.BIRTHDAY " +
+        String sql = "SELECT u.ID as friend_id, u.EMAIL, u.LOGIN, u.NAME, u.BIRTHDAY, u.VERSION " +
                 "FROM USER_ACCOUNT u " +
                 "JOIN (SELECT FRIEND_ID FROM friendship WHERE USER_ID = ?) fs1 " +
                 "JOIN (SELECT FRIEND_ID FROM friendship WHERE USER_ID = ?) fs2 " +
@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Genre;
 
@@ -9,6 +11,7 @@ import java.sql.SQLException;
 import java.util.*;
 
 @Repository
+@Timed("filmorate.dao")
 public class GenreDao {
 
     private final JdbcTemplate jdbcTemplate;
@@ -18,7 +21,7 @@ public class GenreDao {
     }
 
     public List<Genre> findAll() {
-        String sql = "SELECT * FROM GENRE";
+        String sql = "SELECT * FROM GENRE ORDER BY ID";
         return jdbcTemplate.query(sql, this::mapRowToGenre);
     }
 
@@ -33,7 +36,22 @@ public class GenreDao {
         return jdbcTemplate.query(sqlGenres, this::mapRowToGenre, filmId);
     }
 
+    public Map<Integer, List<Integer>> findGenreIdsByFilmIds(Collection<Integer> filmIds) {
+        String sql = "SELECT fg.FILM_ID, fg.GENRE_ID FROM FILM_GENRE fg WHERE fg.FILM_ID = ANY(?) " +
+                "ORDER BY fg.FILM_ID, fg.GENRE_ID";
+        Map<Integer, List<Integer>> genreIdsByFilmId = new HashMap<>();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", filmIds.toArray())),
+                (RowCallbackHandler) rs -> genreIdsByFilmId
+                        .computeIfAbsent(rs.getInt("film_id"), id -> new ArrayList<>())
+                        .add(rs.getInt("genre_id")));
+        return genreIdsByFilmId;
+    }
+
     public void updateFilmGenres(int filmId, Collection<Genre> genres) {
+        if (genres.isEmpty()) {
+            return;
+        }
         String sql = "MERGE INTO FILM_GENRE (FILM_ID, GENRE_ID) VALUES (?, ?)";
         List<Object[]> parameters = new ArrayList<>();
         for (Genre genre : genres) {
@@ -42,16 +60,13 @@ public class GenreDao {
         jdbcTemplate.batchUpdate(sql, parameters);
     }
 
-    public Set<Integer> getMatchGenresId(Collection<Integer> genresId) {
-        String inIds = String.join(",", Collections.nCopies(genresId.size(), "?"));
-        List<Genre> genreList = jdbcTemplate.query("SELECT * FROM GENRE WHERE ID IN (" + inIds + ")",
-                this::mapRowToGenre, genresId.toArray());
-
-        Set<Integer> matchGenresIds = new HashSet<>();
-        for (Genre genre : genreList) {
-            matchGenresIds.add(genre.getId());
-        }
-        return matchGenresIds;
+    /**
+     * Заменяет жанры фильма переданными: старые связи удаляются, новые добавляются одним пакетом.
+     */
+    public void replaceFilmGenres(int filmId, Collection<Genre> genres) {
+        String sql = "DELETE FROM FILM_GENRE WHERE FILM_ID = ?";
+        jdbcTemplate.update(sql, filmId);
+        updateFilmGenres(filmId, genres);
     }
 
     private Genre mapRowToGenre(ResultSet rs, int rowNum) throws SQLException {
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import io.micrometer.core.annotation.Timed;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -9,6 +10,7 @@ import java.sql.SQLException;
 import java.util.List;
 
 @Repository
+@Timed("filmorate.dao")
 public class MpaDao {
 
     private final JdbcTemplate jdbcTemplate;
@@ -18,7 +20,7 @@ public class MpaDao {
     }
 
     public List<Mpa> findAll() {
-        String sql = "SELECT * FROM MPA";
+        String sql = "SELECT * FROM MPA ORDER BY ID";
         return jdbcTemplate.query(sql, this::mapRowToMpa);
     }
 
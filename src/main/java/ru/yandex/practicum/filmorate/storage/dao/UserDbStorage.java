@@ -1,38 +1,64 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.mapper.UserMapper;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 
-import java.util.List;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Repository("UserDbStorage")
+@Timed("filmorate.dao")
 public class UserDbStorage implements UserStorage {
 
+    private static final String INSERT_USER = "INSERT INTO user_account (email, login, name, birthday) " +
+            "VALUES (?, ?, ?, ?)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final PreparedStatementCreatorFactory insertUser;
 
     public UserDbStorage(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
+        this.insertUser = new PreparedStatementCreatorFactory(INSERT_USER,
+                Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DATE);
+        this.insertUser.setGeneratedKeysColumnNames("id");
     }
 
     @Override
     public User createUser(User user) {
-        SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate)
-                .withTableName("user_account")
-                .usingGeneratedKeyColumns("id");
-
-        int id = insert.executeAndReturnKey(user.toMap()).intValue();
-        return getUser(id);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(insertUser.newPreparedStatementCreator(Arrays.asList(user.getEmail(), user.getLogin(),
+                user.getName(), user.getBirthday())), keyHolder);
+        user.setId(Objects.requireNonNull(keyHolder.getKey()).intValue());
+        user.setVersion(0);
+        return user;
     }
 
     @Override
     public User updateUser(User user) {
-        String sql = "UPDATE user_account SET email = ?, login = ?, name = ?, birthday = ? where id = ?";
-        jdbcTemplate.update(sql, user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(), user.getId());
-        return getUser(user.getId());
+        String sql = "UPDATE user_account SET email = ?, login = ?, name = ?, birthday = ?, version = version + 1 " +
+                "where id = ?";
+        int updated = jdbcTemplate.update(sql, user.getEmail(), user.getLogin(), user.getName(), user.getBirthday(),
+                user.getId());
+        if (updated == 0) {
+            throw new EmptyResultDataAccessException(1);
+        }
+        // новая версия без повторного чтения неизвестна
+        user.setVersion(null);
+        return user;
     }
 
     @Override
@@ -47,9 +73,74 @@ public class UserDbStorage implements UserStorage {
         return jdbcTemplate.query(sql, new UserMapper());
     }
 
+    @Override
+    public List<User> getUsers(int afterId, int limit) {
+        String sql = "SELECT * FROM user_account WHERE id > ? ORDER BY id LIMIT ?";
+        return jdbcTemplate.query(sql, new UserMapper(), afterId, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void streamUsers(int chunkSize, Consumer<List<User>> chunkConsumer) {
+        String sql = "SELECT * FROM user_account ORDER BY id";
+        PreparedStatementCreator cursor = connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(chunkSize);
+            return ps;
+        };
+        try (Stream<User> users = jdbcTemplate.queryForStream(cursor, new UserMapper())) {
+            List<User> chunk = new ArrayList<>(chunkSize);
+            users.forEachOrdered(user -> {
+                chunk.add(user);
+                if (chunk.size() == chunkSize) {
+                    chunkConsumer.accept(chunk);
+                    chunk.clear();
+                }
+            });
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+            }
+        }
+    }
+
     @Override
     public User getUser(int id) {
         String sql = "SELECT * FROM user_account WHERE id = ?";
         return jdbcTemplate.queryForObject(sql, new UserMapper(), id);
     }
+
+    @Override
+    public int getUserVersion(int id) {
+        String sql = "SELECT version FROM user_account WHERE id = ?";
+        return jdbcTemplate.queryForObject(sql, Integer.class, id);
+    }
+
+    @Override
+    public List<User> getUsersByIds(int[] ids) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        String sql = "SELECT * FROM user_account WHERE id = ANY(?)";
+        Object[] boxedIds = new Object[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            boxedIds[i] = ids[i];
+        }
+        Map<Integer, User> usersById = new HashMap<>();
+        UserMapper userMapper = new UserMapper();
+        jdbcTemplate.query(sql,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("INTEGER", boxedIds)),
+                (RowCallbackHandler) rs -> {
+                    User user = userMapper.mapRow(rs, 0);
+                    usersById.put(user.getId(), user);
+                });
+
+        List<User> users = new ArrayList<>(usersById.size());
+        for (int id : ids) {
+            User user = usersById.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
 }
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Потокобезопасное хранилище объектов по id для in-memory хранилищ.
+ * Каждая запись атомарна: замена и удаление отсутствующего id ничего не меняют и возвращают {@code false}.
+ * Полный список отдается неизменяемым снимком, который пересобирается только после изменений,
+ * поэтому повторные чтения без записей между ними ничего не копируют.
+ */
+class ConcurrentIdStore<V> {
+
+    private final ConcurrentNavigableMap<Integer, V> values = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot<V> snapshot = new Snapshot<>(0, List.of());
+
+    void put(int id, V value) {
+        values.put(id, value);
+        version.incrementAndGet();
+    }
+
+    boolean replace(int id, V value) {
+        if (values.replace(id, value) == null) {
+            return false;
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    boolean remove(int id) {
+        if (values.remove(id) == null) {
+            return false;
+        }
+        version.incrementAndGet();
+        return true;
+    }
+
+    V get(int id) {
+        return values.get(id);
+    }
+
+    /**
+     * Все объекты в порядке id. Список неизменяемый и общий для всех читателей до следующей записи.
+     */
+    List<V> snapshot() {
+        // версию читаем до обхода: запись, завершившаяся раньше, уже видна в карте
+        long currentVersion = version.get();
+        Snapshot<V> current = snapshot;
+        if (current.version == currentVersion) {
+            return current.values;
+        }
+        List<V> rebuilt = Collections.unmodifiableList(new ArrayList<>(values.values()));
+        snapshot = new Snapshot<>(currentVersion, rebuilt);
+        return rebuilt;
+    }
+
+    List<V> page(int afterId, int limit) {
+        List<V> page = new ArrayList<>(Math.min(limit, 64));
+        for (V value : values.tailMap(afterId, false).values()) {
+            if (page.size() >= limit) {
+                break;
+            }
+            page.add(value);
+        }
+        return page;
+    }
+
+    private static final class Snapshot<V> {
+
+        private final long version;
+        private final List<V> values;
+
+        private Snapshot(long version, List<V> values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+}
@@ -7,19 +7,19 @@ import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.utils.GeneratorId;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Integer, Film> films = new HashMap<>();
+    private final ConcurrentIdStore<Film> films = new ConcurrentIdStore<>();
     private final GeneratorId generatorId = new GeneratorId();
 
     @Override
     public Film addFilm(Film film) {
         int id = generatorId.generateNewId();
         film.setId(id);
+        film.setVersion(0);
         films.put(id, film);
 
         return film;
@@ -27,31 +27,62 @@ public class InMemoryFilmStorage implements FilmStorage {
 
     @Override
     public void removeFilm(int id) {
-        if (!films.containsKey(id)) {
+        if (!films.remove(id)) {
             throw new FilmNotFoundException("Фильма с id \"" + id + "\" нет в хранилище.");
         }
-        films.remove(id);
     }
 
     @Override
     public Film updateFilm(Film film) {
-        if (!films.containsKey(film.getId())) {
+        Film previous = films.get(film.getId());
+        film.setVersion(previous == null ? 0 : previous.getVersion() + 1);
+        if (!films.replace(film.getId(), film)) {
             throw new FilmNotFoundException("Фильма с id \"" + film.getId() + "\" нет в хранилище.");
         }
-        films.put(film.getId(), film);
         return film;
     }
 
     @Override
     public List<Film> getFilms() {
-        return new ArrayList<>(films.values());
+        return films.snapshot();
+    }
+
+    @Override
+    public List<Film> getFilms(int afterId, int limit) {
+        return films.page(afterId, limit);
+    }
+
+    @Override
+    public void streamFilms(int chunkSize, Consumer<List<Film>> chunkConsumer) {
+        List<Film> sorted = films.snapshot();
+        for (int from = 0; from < sorted.size(); from += chunkSize) {
+            chunkConsumer.accept(sorted.subList(from, Math.min(from + chunkSize, sorted.size())));
+        }
     }
 
     @Override
     public Film getFilm(int id) {
-        if (!films.containsKey(id)) {
+        Film film = films.get(id);
+        if (film == null) {
             throw new FilmNotFoundException("Фильма с id \"" + id + "\" нет в хранилище.");
         }
-        return films.get(id);
+        return film;
+    }
+
+    @Override
+    public int getFilmVersion(int id) {
+        return getFilm(id).getVersion();
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        List<Film> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                result.add(film);
+            }
+        }
+        return result;
     }
 }
@@ -7,14 +7,13 @@ import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.utils.GeneratorId;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Consumer;
 
 @Component
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Integer, User> users = new HashMap<>();
+    private final ConcurrentIdStore<User> users = new ConcurrentIdStore<>();
     private final GeneratorId generatorId = new GeneratorId();
 
     @Override
@@ -25,6 +24,7 @@ public class InMemoryUserStorage implements UserStorage {
 
         int id = generatorId.generateNewId();
         user.setId(id);
+        user.setVersion(0);
         users.put(id, user);
 
         return user;
@@ -32,37 +32,67 @@ public class InMemoryUserStorage implements UserStorage {
 
     @Override
     public User updateUser(User user) {
-        if (!users.containsKey(user.getId())) {
-            throw new UserNotFoundException("Пользователь с id: \"" + user.getId() + "\" не зарегистрирован.");
-        }
-
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
 
-        users.put(user.getId(), user);
+        User previous = users.get(user.getId());
+        user.setVersion(previous == null ? 0 : previous.getVersion() + 1);
+        if (!users.replace(user.getId(), user)) {
+            throw new UserNotFoundException("Пользователь с id: \"" + user.getId() + "\" не зарегистрирован.");
+        }
 
         return user;
     }
 
     @Override
     public void deleteUser(int id) {
-        if (!users.containsKey(id)) {
+        if (!users.remove(id)) {
             throw new UserNotFoundException("Пользователь с id: \"" + id + "\" не зарегистрирован.");
         }
-        users.remove(id);
     }
 
     @Override
     public List<User> getUsers() {
-        return new ArrayList<>(users.values());
+        return users.snapshot();
+    }
+
+    @Override
+    public List<User> getUsers(int afterId, int limit) {
+        return users.page(afterId, limit);
+    }
+
+    @Override
+    public void streamUsers(int chunkSize, Consumer<List<User>> chunkConsumer) {
+        List<User> sorted = users.snapshot();
+        for (int from = 0; from < sorted.size(); from += chunkSize) {
+            chunkConsumer.accept(sorted.subList(from, Math.min(from + chunkSize, sorted.size())));
+        }
     }
 
     @Override
     public User getUser(int id) {
-        if (!users.containsKey(id)) {
+        User user = users.get(id);
+        if (user == null) {
             throw new UserNotFoundException("Пользователь с id: \"" + id + "\" не зарегистрирован.");
         }
-        return users.get(id);
+        return user;
+    }
+
+    @Override
+    public int getUserVersion(int id) {
+        return getUser(id).getVersion();
+    }
+
+    @Override
+    public List<User> getUsersByIds(int[] ids) {
+        List<User> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            User user = users.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
     }
 }
@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage.reactive;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Чтение большой выборки страницами по возрастанию id. Следующая страница запрашивается, только когда
+ * получатель забрал предыдущую, поэтому медленный клиент не держит соединение с базой и не копит список в памяти.
+ */
+final class Keyset {
+
+    private Keyset() {
+    }
+
+    static <T> Flux<List<T>> chunks(IntFunction<Mono<List<T>>> pageAfter, ToIntFunction<T> id, int chunkSize) {
+        return pageAfter.apply(0)
+                .expand(chunk -> chunk.size() < chunkSize
+                        ? Mono.empty()
+                        : pageAfter.apply(id.applyAsInt(chunk.get(chunk.size() - 1))))
+                .filter(chunk -> !chunk.isEmpty());
+    }
+}
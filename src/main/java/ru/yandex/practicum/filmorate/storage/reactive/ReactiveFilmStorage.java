@@ -0,0 +1,120 @@
+package ru.yandex.practicum.filmorate.storage.reactive;
+
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Чтение фильмов через R2DBC для реактивного API. Запросы те же, что у {@code FilmDbStorage} и {@code FilmLikesDao}:
+ * MPA и жанры берутся из {@link ReferenceDataRegistry}, связи с жанрами и лайки подгружаются пачкой на всю выборку.
+ */
+public class ReactiveFilmStorage {
+
+    private static final String SELECT_FILM = "SELECT f.ID, f.NAME, f.DESCRIPTION, f.RELEASE_DATE, f.DURATION, " +
+            "f.MPA_ID, f.VERSION FROM FILM f";
+
+    private final DatabaseClient databaseClient;
+    private final ReferenceDataRegistry referenceDataRegistry;
+    private final Scheduler scheduler;
+
+    public ReactiveFilmStorage(DatabaseClient databaseClient, ReferenceDataRegistry referenceDataRegistry,
+                               Scheduler scheduler) {
+        this.databaseClient = databaseClient;
+        this.referenceDataRegistry = referenceDataRegistry;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Все фильмы по возрастанию id пачками не больше {@code chunkSize}. Пачка читается по запросу получателя.
+     */
+    public Flux<List<Film>> streamFilms(int chunkSize) {
+        return Keyset.chunks(afterId -> getFilms(afterId, chunkSize), Film::getId, chunkSize);
+    }
+
+    public Mono<List<Film>> getFilms(int afterId, int limit) {
+        return hydrate(databaseClient.sql(SELECT_FILM + " WHERE f.ID > :afterId ORDER BY f.ID LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(this::mapFilm)
+                .all())
+                .subscribeOn(scheduler);
+    }
+
+    /**
+     * Фильм или пустой {@link Mono}, если его нет.
+     */
+    public Mono<Film> getFilm(int id) {
+        return hydrate(databaseClient.sql(SELECT_FILM + " WHERE f.ID = :id")
+                .bind("id", id)
+                .map(this::mapFilm)
+                .all())
+                .flatMap(films -> Mono.justOrEmpty(films.stream().findFirst()))
+                .subscribeOn(scheduler);
+    }
+
+    public Mono<List<Film>> getMostPopularFilms(int count) {
+        return hydrate(databaseClient.sql(SELECT_FILM + " ORDER BY f.LIKE_COUNT DESC, f.ID LIMIT :count")
+                .bind("count", count)
+                .map(this::mapFilm)
+                .all())
+                .subscribeOn(scheduler);
+    }
+
+    private Film mapFilm(Row row) {
+        Film film = new Film();
+        film.setId(row.get("ID", Integer.class));
+        film.setName(row.get("NAME", String.class));
+        film.setDescription(row.get("DESCRIPTION", String.class));
+        film.setReleaseDate(row.get("RELEASE_DATE", LocalDate.class));
+        film.setDuration(Duration.ofSeconds(row.get("DURATION", Integer.class)));
+        film.setVersion(row.get("VERSION", Integer.class));
+        film.setMpa(referenceDataRegistry.getMpa(row.get("MPA_ID", Integer.class)));
+        return film;
+    }
+
+    private Mono<List<Film>> hydrate(Flux<Film> rows) {
+        return rows.collectList().flatMap(films -> {
+            if (films.isEmpty()) {
+                return Mono.just(films);
+            }
+            Integer[] filmIds = films.stream().map(Film::getId).toArray(Integer[]::new);
+
+            Mono<Map<Integer, List<Integer>>> genreIds = databaseClient.sql("SELECT fg.FILM_ID, fg.GENRE_ID " +
+                            "FROM FILM_GENRE fg WHERE fg.FILM_ID = ANY(:filmIds) ORDER BY fg.FILM_ID, fg.GENRE_ID")
+                    .bind("filmIds", filmIds)
+                    .map(row -> new int[]{row.get("FILM_ID", Integer.class), row.get("GENRE_ID", Integer.class)})
+                    .all()
+                    .collect(HashMap::new, (map, pair) -> map.computeIfAbsent(pair[0], id -> new ArrayList<>())
+                            .add(pair[1]));
+            Mono<Map<Integer, IntBitmap>> likes = databaseClient.sql("SELECT fl.FILM_ID, fl.USER_ID " +
+                            "FROM FILM_LIKES fl WHERE fl.FILM_ID = ANY(:filmIds) ORDER BY fl.FILM_ID, fl.USER_ID")
+                    .bind("filmIds", filmIds)
+                    .map(row -> new int[]{row.get("FILM_ID", Integer.class), row.get("USER_ID", Integer.class)})
+                    .all()
+                    .collect(HashMap::new, (map, pair) -> map.computeIfAbsent(pair[0], id -> new IntBitmap())
+                            .add(pair[1]));
+
+            return Mono.zip(genreIds, likes).map(tuple -> {
+                for (Film film : films) {
+                    List<Genre> genres = new ArrayList<>();
+                    for (Integer genreId : tuple.getT1().getOrDefault(film.getId(), List.of())) {
+                        genres.add(referenceDataRegistry.getGenre(genreId));
+                    }
+                    film.setGenres(genres);
+                    film.setLikes(tuple.getT2().getOrDefault(film.getId(), new IntBitmap()));
+                }
+                return films;
+            });
+        });
+    }
+}
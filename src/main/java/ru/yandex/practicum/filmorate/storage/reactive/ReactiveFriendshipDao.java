@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.storage.reactive;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+
+import static ru.yandex.practicum.filmorate.storage.reactive.ReactiveUserStorage.USER_COLUMNS;
+
+/**
+ * Чтение друзей через R2DBC для реактивного API, запросы те же, что у {@code FriendshipDao}.
+ */
+public class ReactiveFriendshipDao {
+
+    private final DatabaseClient databaseClient;
+    private final Scheduler scheduler;
+
+    public ReactiveFriendshipDao(DatabaseClient databaseClient, Scheduler scheduler) {
+        this.databaseClient = databaseClient;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Друзья пользователя по возрастанию id пачками не больше {@code chunkSize}. Пачка читается по запросу получателя.
+     */
+    public Flux<List<User>> streamFriends(int userId, int chunkSize) {
+        return Keyset.chunks(afterId -> getFriends(userId, afterId, chunkSize), User::getId, chunkSize);
+    }
+
+    public Mono<List<User>> getFriends(int userId, int afterId, int limit) {
+        return databaseClient.sql("SELECT " + USER_COLUMNS + " " +
+                        "FROM USER_ACCOUNT u " +
+                        "JOIN FRIENDSHIP f ON u.ID = f.FRIEND_ID " +
+                        "WHERE f.USER_ID = :userId AND f.FRIEND_ID > :afterId " +
+                        "ORDER BY f.FRIEND_ID " +
+                        "LIMIT :limit")
+                .bind("userId", userId)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactiveUserStorage::mapUser)
+                .all()
+                .collectList()
+                .subscribeOn(scheduler);
+    }
+
+    public Mono<List<User>> getMutualFriends(int userId1, int userId2) {
+        return databaseClient.sql("SELECT " + USER_COLUMNS + " " +
+                        "FROM USER_ACCOUNT u " +
+                        "JOIN (SELECT FRIEND_ID FROM FRIENDSHIP WHERE USER_ID = :userId1) fs1 " +
+                        "JOIN (SELECT FRIEND_ID FROM FRIENDSHIP WHERE USER_ID = :userId2) fs2 " +
+                        "ON fs1.FRIEND_ID = fs2.FRIEND_ID " +
+                        "WHERE u.ID = fs1.FRIEND_ID " +
+                        "ORDER BY u.ID")
+                .bind("userId1", userId1)
+                .bind("userId2", userId2)
+                .map(ReactiveUserStorage::mapUser)
+                .all()
+                .collectList()
+                .subscribeOn(scheduler);
+    }
+}
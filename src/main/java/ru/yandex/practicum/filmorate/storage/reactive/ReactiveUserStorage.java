@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage.reactive;
+
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+/**
+ * Чтение пользователей через R2DBC для реактивного API, запросы те же, что у {@code UserDbStorage}.
+ */
+public class ReactiveUserStorage {
+
+    static final String USER_COLUMNS = "u.ID, u.EMAIL, u.LOGIN, u.NAME, u.BIRTHDAY, u.VERSION";
+
+    private final DatabaseClient databaseClient;
+    private final Scheduler scheduler;
+
+    public ReactiveUserStorage(DatabaseClient databaseClient, Scheduler scheduler) {
+        this.databaseClient = databaseClient;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Пользователь или пустой {@link Mono}, если его нет.
+     */
+    public Mono<User> getUser(int id) {
+        return databaseClient.sql("SELECT " + USER_COLUMNS + " FROM USER_ACCOUNT u WHERE u.ID = :id")
+                .bind("id", id)
+                .map(ReactiveUserStorage::mapUser)
+                .one()
+                .subscribeOn(scheduler);
+    }
+
+    static User mapUser(Row row) {
+        User user = new User(
+                row.get("EMAIL", String.class),
+                row.get("LOGIN", String.class),
+                row.get("NAME", String.class),
+                row.get("BIRTHDAY", LocalDate.class).toString()
+        );
+        user.setId(row.get("ID", Integer.class));
+        user.setVersion(row.get("VERSION", Integer.class));
+        return user;
+    }
+}
@@ -1,13 +1,16 @@
 package ru.yandex.practicum.filmorate.utils;
 
-import lombok.Getter;
+import java.util.concurrent.atomic.AtomicInteger;
 
-@Getter
 public class GeneratorId {
 
-    private int id = 0;
+    private final AtomicInteger id = new AtomicInteger();
 
     public int generateNewId() {
-        return ++id;
+        return id.incrementAndGet();
+    }
+
+    public int getId() {
+        return id.get();
     }
 }
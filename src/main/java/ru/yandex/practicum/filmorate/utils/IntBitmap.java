@@ -0,0 +1,493 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Компактное множество int в духе roaring bitmap.
+ * Значения делятся на блоки по старшим 16 битам: в разреженном блоке хранится отсортированный массив
+ * младших 16 бит ({@code char[]}), в плотном (больше 4096 значений) - битовая карта на 65536 бит (8 КБ).
+ * Размер множества хранится отдельно и отдается за O(1), проверка и добавление значений не создают Integer.
+ * Обход идет по возрастанию для неотрицательных чисел. Класс не потокобезопасен.
+ */
+public final class IntBitmap extends AbstractSet<Integer> {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final char[] NO_KEYS = new char[0];
+    private static final Container[] NO_CONTAINERS = new Container[0];
+
+    private char[] keys = NO_KEYS;
+    private Container[] containers = NO_CONTAINERS;
+    private int containerCount;
+    private int cardinality;
+
+    public IntBitmap() {
+    }
+
+    public IntBitmap(Collection<Integer> values) {
+        addAll(values);
+    }
+
+    public static IntBitmap of(int... values) {
+        IntBitmap bitmap = new IntBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    public boolean contains(int value) {
+        int index = findKey(high(value));
+        return index >= 0 && containers[index].contains(low(value));
+    }
+
+    public boolean add(int value) {
+        char high = high(value);
+        char low = low(value);
+        int index = findKey(high);
+        if (index < 0) {
+            insertContainer(-index - 1, high, new ArrayContainer(low));
+            cardinality++;
+            return true;
+        }
+        Container container = containers[index];
+        if (container.contains(low)) {
+            return false;
+        }
+        containers[index] = container.add(low);
+        cardinality++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int index = findKey(high(value));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        char low = low(value);
+        if (!container.contains(low)) {
+            return false;
+        }
+        Container updated = container.remove(low);
+        cardinality--;
+        if (updated.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = updated;
+        }
+        return true;
+    }
+
+    /**
+     * Значение с порядковым номером {@code index} в порядке обхода.
+     */
+    public int select(int index) {
+        if (index < 0 || index >= cardinality) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + cardinality);
+        }
+        for (int i = 0; i < containerCount; i++) {
+            Container container = containers[i];
+            if (index < container.cardinality()) {
+                return (keys[i] << 16) | container.select(index);
+            }
+            index -= container.cardinality();
+        }
+        throw new IllegalStateException("Нарушена целостность битовой карты");
+    }
+
+    public void forEachInt(IntConsumer action) {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public int[] toIntArray() {
+        int[] values = new int[cardinality];
+        int[] position = {0};
+        forEachInt(value -> values[position[0]++] = value);
+        return values;
+    }
+
+    /**
+     * Неизменяемое представление в виде списка без копирования значений.
+     */
+    public List<Integer> asList() {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return select(index);
+            }
+
+            @Override
+            public int size() {
+                return cardinality;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return IntBitmap.this.contains(o);
+            }
+
+            @Override
+            public Iterator<Integer> iterator() {
+                return Collections.unmodifiableSet(IntBitmap.this).iterator();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return cardinality;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Integer && contains(((Integer) o).intValue());
+    }
+
+    @Override
+    public boolean add(Integer value) {
+        return add(value.intValue());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof Integer && remove(((Integer) o).intValue());
+    }
+
+    @Override
+    public void clear() {
+        keys = NO_KEYS;
+        containers = NO_CONTAINERS;
+        containerCount = 0;
+        cardinality = 0;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int containerIndex;
+            private int from;
+            private boolean ready;
+            private int next;
+            private int last;
+            private boolean canRemove;
+
+            @Override
+            public boolean hasNext() {
+                if (!ready) {
+                    advance();
+                }
+                return containerIndex < containerCount;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                ready = false;
+                canRemove = true;
+                last = next;
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (!canRemove) {
+                    throw new IllegalStateException();
+                }
+                canRemove = false;
+                IntBitmap.this.remove(last);
+                // обход идет по значениям, поэтому продолжаем со следующего после удаленного
+                int index = findKey(high(last));
+                if (index >= 0) {
+                    containerIndex = index;
+                    from = low(last) + 1;
+                } else {
+                    containerIndex = -index - 1;
+                    from = 0;
+                }
+                ready = false;
+            }
+
+            private void advance() {
+                while (containerIndex < containerCount) {
+                    int low = containers[containerIndex].nextValue(from);
+                    if (low >= 0) {
+                        next = (keys[containerIndex] << 16) | low;
+                        from = low + 1;
+                        ready = true;
+                        return;
+                    }
+                    containerIndex++;
+                    from = 0;
+                }
+                ready = true;
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof IntBitmap)) {
+            return super.equals(o);
+        }
+        IntBitmap other = (IntBitmap) o;
+        if (other.cardinality != cardinality || other.containerCount != containerCount) {
+            return false;
+        }
+        for (int i = 0; i < containerCount; i++) {
+            if (keys[i] != other.keys[i] || !containers[i].sameValues(other.containers[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        // как у Set<Integer>: сумма хешей элементов
+        int[] hash = {0};
+        forEachInt(value -> hash[0] += value);
+        return hash[0];
+    }
+
+    private int findKey(char key) {
+        return Arrays.binarySearch(keys, 0, containerCount, key);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        if (containerCount == keys.length) {
+            int capacity = Math.max(4, containerCount + (containerCount >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        keys[index] = key;
+        containers[index] = container;
+        containerCount++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, containerCount - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, containerCount - index - 1);
+        containerCount--;
+        containers[containerCount] = null;
+    }
+
+    private static char high(int value) {
+        return (char) (value >>> 16);
+    }
+
+    private static char low(int value) {
+        return (char) value;
+    }
+
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        /**
+         * Добавляет отсутствующее значение, возвращает этот же или новый контейнер.
+         */
+        abstract Container add(char value);
+
+        /**
+         * Удаляет присутствующее значение, возвращает этот же или новый контейнер.
+         */
+        abstract Container remove(char value);
+
+        abstract char select(int index);
+
+        /**
+         * Наименьшее значение не меньше {@code from} или -1, если такого нет.
+         */
+        abstract int nextValue(int from);
+
+        abstract void forEach(int high, IntConsumer action);
+
+        boolean sameValues(Container other) {
+            if (cardinality() != other.cardinality()) {
+                return false;
+            }
+            int value = nextValue(0);
+            while (value >= 0) {
+                if (other.nextValue(value) != value) {
+                    return false;
+                }
+                value = nextValue(value + 1);
+            }
+            return true;
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int cardinality;
+
+        private ArrayContainer(char value) {
+            values = new char[]{value, 0};
+            cardinality = 1;
+        }
+
+        private ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            int index = -Arrays.binarySearch(values, 0, cardinality, value) - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality + (cardinality >> 1) + 1));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+            cardinality--;
+            return this;
+        }
+
+        @Override
+        char select(int index) {
+            return values[index];
+        }
+
+        @Override
+        int nextValue(int from) {
+            if (from > Character.MAX_VALUE) {
+                return -1;
+            }
+            int index = Arrays.binarySearch(values, 0, cardinality, (char) from);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            return index < cardinality ? values[index] : -1;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words = new long[1024];
+        private int cardinality;
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            set(value);
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            words[value >>> 6] &= ~(1L << value);
+            cardinality--;
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        char select(int index) {
+            for (int i = 0; i < words.length; i++) {
+                int bits = Long.bitCount(words[i]);
+                if (index < bits) {
+                    long word = words[i];
+                    for (int j = 0; j < index; j++) {
+                        word &= word - 1;
+                    }
+                    return (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                }
+                index -= bits;
+            }
+            throw new IndexOutOfBoundsException();
+        }
+
+        @Override
+        int nextValue(int from) {
+            if (from > Character.MAX_VALUE) {
+                return -1;
+            }
+            int i = from >>> 6;
+            long word = words[i] & (-1L << from);
+            while (word == 0) {
+                if (++i == words.length) {
+                    return -1;
+                }
+                word = words[i];
+            }
+            return (i << 6) | Long.numberOfTrailingZeros(word);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private void set(char value) {
+            words[value >>> 6] |= 1L << value;
+            cardinality++;
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[cardinality];
+            int[] position = {0};
+            forEach(0, value -> values[position[0]++] = (char) value);
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Разбивает текст на термы для поиска: слова из букв и цифр в нижнем регистре, ё заменяется на е,
+ * у русских и английских слов отрезается окончание. Стемминг грубый, но одинаковый для текста и запроса,
+ * поэтому «звездные войны» находит «Звездных войн», а «movies» находит «Movie».
+ */
+public final class TextTokenizer {
+
+    private static final int MIN_STEM_LENGTH = 3;
+    // длинные окончания раньше коротких: отрезается самое длинное подходящее
+    private static final String[] RUSSIAN_ENDINGS = {
+            "ться", "тся",
+            "ами", "ями", "ого", "его", "ому", "ему", "ыми", "ими", "ать", "ять", "ить", "еть", "ешь",
+            "ая", "яя", "ое", "ее", "ые", "ие", "ый", "ий", "ой", "ей", "ым", "им", "ом", "ем", "ую", "юю",
+            "ых", "их", "ах", "ях", "ам", "ям", "ов", "ев", "ия", "ию", "ии", "ью", "ья", "ет", "ут", "ют", "ит",
+            "ат", "ят", "ал", "ял", "ил", "ла", "ли", "ло",
+            "а", "я", "о", "е", "ы", "и", "у", "ю", "ь", "й"};
+
+    private TextTokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(stem(normalized.substring(start, i)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    static String stem(String word) {
+        if (word.length() <= MIN_STEM_LENGTH) {
+            return word;
+        }
+        char first = word.charAt(0);
+        if (Character.UnicodeBlock.of(first) == Character.UnicodeBlock.CYRILLIC) {
+            return stemRussian(word);
+        }
+        if (first >= 'a' && first <= 'z') {
+            return stemEnglish(word);
+        }
+        return word;
+    }
+
+    private static String stemRussian(String word) {
+        for (String ending : RUSSIAN_ENDINGS) {
+            if (word.endsWith(ending) && word.length() - ending.length() >= MIN_STEM_LENGTH) {
+                return word.substring(0, word.length() - ending.length());
+            }
+        }
+        return word;
+    }
+
+    private static String stemEnglish(String word) {
+        if (word.endsWith("sses")) {
+            word = cut(word, 2);
+        } else if (word.endsWith("ies")) {
+            word = cut(word, 2);
+        } else if (word.endsWith("s") && !word.endsWith("ss")) {
+            word = cut(word, 1);
+        }
+        if (word.endsWith("ing")) {
+            word = cut(word, 3);
+        } else if (word.endsWith("ed")) {
+            word = cut(word, 2);
+        }
+        // story/stories и movie/movies сводятся к одной основе
+        if (word.endsWith("e")) {
+            word = cut(word, 1);
+        } else if (word.endsWith("y")) {
+            word = cut(word, 1) + "i";
+        }
+        return word;
+    }
+
+    private static String cut(String word, int suffixLength) {
+        return word.length() - suffixLength >= MIN_STEM_LENGTH ? word.substring(0, word.length() - suffixLength) : word;
+    }
+}
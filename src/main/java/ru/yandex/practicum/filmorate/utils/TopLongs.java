@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.util.Arrays;
+
+/**
+ * Отбор {@code limit} наибольших long через кучу с минимумом в корне: в корне худший из отобранных.
+ * Ранг и id удобно упаковывать в один long: {@code (rank << 32) | (Integer.MAX_VALUE - id)},
+ * тогда при равном ранге выше окажется меньший id, а id достается через {@link #idOf(long)}.
+ * Класс не потокобезопасен.
+ */
+public final class TopLongs {
+
+    private final long[] heap;
+    private int size;
+
+    public TopLongs(int limit) {
+        heap = new long[Math.max(0, limit)];
+    }
+
+    public static long pack(int rank, int id) {
+        return ((long) rank << 32) | (Integer.MAX_VALUE - id);
+    }
+
+    /**
+     * Ранг для положительного float: у таких чисел порядок битов совпадает с порядком значений.
+     */
+    public static int rankOf(float positiveScore) {
+        return Float.floatToIntBits(positiveScore);
+    }
+
+    public static int idOf(long packed) {
+        return Integer.MAX_VALUE - (int) packed;
+    }
+
+    public static float scoreOf(long packed) {
+        return Float.intBitsToFloat((int) (packed >>> 32));
+    }
+
+    public void offer(long value) {
+        if (size < heap.length) {
+            siftUp(size++, value);
+        } else if (size > 0 && value > heap[0]) {
+            siftDown(value);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Отобранные значения по убыванию.
+     */
+    public long[] toSortedDescending() {
+        long[] sorted = Arrays.copyOf(heap, size);
+        Arrays.sort(sorted);
+        for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+            long swap = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = swap;
+        }
+        return sorted;
+    }
+
+    /**
+     * Id отобранных значений по убыванию ранга.
+     */
+    public int[] toIdsDescending() {
+        long[] sorted = toSortedDescending();
+        int[] ids = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = idOf(sorted[i]);
+        }
+        return ids;
+    }
+
+    private void siftUp(int index, long value) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] <= value) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = value;
+    }
+
+    private void siftDown(long value) {
+        int index = 0;
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (value <= heap[child]) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = value;
+    }
+}
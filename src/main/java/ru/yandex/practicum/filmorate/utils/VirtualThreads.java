@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Виртуальные потоки Java 21 без компиляции под Java 21: API вызывается через reflection,
+ * поэтому приложение по-прежнему собирается под Java 11 и запускается на любой версии,
+ * а режим виртуальных потоков включается только на JDK 21 и новее.
+ */
+public final class VirtualThreads {
+
+    private static final int MIN_JAVA_VERSION = 21;
+
+    private VirtualThreads() {
+    }
+
+    public static boolean isSupported() {
+        return Runtime.version().feature() >= MIN_JAVA_VERSION;
+    }
+
+    /**
+     * Фабрика виртуальных потоков с именами {@code namePrefix0}, {@code namePrefix1}, ...
+     *
+     * @throws IllegalStateException если JDK не поддерживает виртуальные потоки
+     */
+    public static ThreadFactory newThreadFactory(String namePrefix) {
+        requireSupported();
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Не удалось создать фабрику виртуальных потоков", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Не удалось создать фабрику виртуальных потоков", e.getCause());
+        }
+    }
+
+    /**
+     * Исполнитель, запускающий каждую задачу в новом виртуальном потоке.
+     *
+     * @throws IllegalStateException если JDK не поддерживает виртуальные потоки
+     */
+    public static ExecutorService newExecutor(String namePrefix) {
+        ThreadFactory threadFactory = newThreadFactory(namePrefix);
+        try {
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, threadFactory);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Не удалось создать исполнитель на виртуальных потоках", e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Не удалось создать исполнитель на виртуальных потоках", e.getCause());
+        }
+    }
+
+    /**
+     * @throws IllegalStateException если JDK не поддерживает виртуальные потоки
+     */
+    public static void requireSupported() {
+        if (!isSupported()) {
+            throw new IllegalStateException("Виртуальные потоки доступны начиная с Java " + MIN_JAVA_VERSION +
+                    ", приложение запущено на Java " + Runtime.version().feature());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+-- V2: первичный ключ FRIENDSHIP и вторичные индексы для запросов по USER_ID, GENRE_ID и MPA_ID.
+-- Скрипт выполняется при каждом старте после schema.sql, поэтому все шаги повторяемы.
+
+-- повторы дружбы схлопываются в одну строку, подтверждение сохраняется, если оно было хотя бы у одной
+update FRIENDSHIP f
+set FRIEND_STATUS_CONFIRM = true
+where FRIEND_STATUS_CONFIRM = false
+  and exists(select 1
+             from FRIENDSHIP d
+             where d.USER_ID = f.USER_ID
+               and d.FRIEND_ID = f.FRIEND_ID
+               and d.FRIEND_STATUS_CONFIRM = true);
+delete
+from FRIENDSHIP f
+where exists(select 1
+             from FRIENDSHIP d
+             where d.USER_ID = f.USER_ID
+               and d.FRIEND_ID = f.FRIEND_ID
+               and d._ROWID_ < f._ROWID_);
+alter table FRIENDSHIP add constraint if not exists FRIENDSHIP_PK primary key (USER_ID, FRIEND_ID);
+create index if not exists FRIENDSHIP_FRIEND_ID_IDX on FRIENDSHIP (FRIEND_ID, USER_ID);
+
+create index if not exists FILM_LIKES_USER_ID_IDX on FILM_LIKES (USER_ID, FILM_ID);
+create index if not exists FILM_GENRE_GENRE_ID_IDX on FILM_GENRE (GENRE_ID, FILM_ID);
+create index if not exists FILM_MPA_ID_IDX on FILM (MPA_ID);
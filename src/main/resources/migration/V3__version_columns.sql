@@ -0,0 +1,5 @@
+-- V3: номер версии фильма и пользователя для ETag в GET /films/{id} и GET /users/{id}.
+-- Увеличивается при каждом изменении строки или лайков фильма, существующие строки начинают с 0.
+
+alter table FILM add column if not exists VERSION INTEGER default 0 not null;
+alter table USER_ACCOUNT add column if not exists VERSION INTEGER default 0 not null;
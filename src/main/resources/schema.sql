@@ -13,11 +13,14 @@ create table if not exists FILM
     MPA_ID INTEGER,
     RELEASE_DATE DATE                   not null,
     DURATION     INTEGER                not null,
+    LIKE_COUNT   INTEGER default 0      not null,
     constraint FILM_PK
         primary key (ID),
     constraint FILM_MPA_ID_FK
         foreign key (MPA_ID) references MPA
 );
+alter table FILM add column if not exists LIKE_COUNT INTEGER default 0 not null;
+create index if not exists FILM_LIKE_COUNT_IDX on FILM (LIKE_COUNT desc, ID);
 create table if not exists GENRE
 (
     ID   INTEGER auto_increment,
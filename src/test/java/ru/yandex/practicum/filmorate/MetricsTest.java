@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class MetricsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void prometheusExposesRequestDaoPoolAndJvmMetrics() throws Exception {
+        // given
+        mockMvc.perform(get("/films/popular")).andExpect(status().isOk());
+        mockMvc.perform(get("/genres")).andExpect(status().isOk());
+
+        // when
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        // then
+        assertThat(metrics)
+                .containsPattern("http_server_requests_seconds_bucket\\{[^}]*uri=\"/films/popular\"")
+                .doesNotContainPattern("http_server_requests_seconds_bucket\\{[^}]*uri=\"/genres\"")
+                .containsPattern("filmorate_dao_seconds_count\\{[^}]*class=\"[\\w.]+FilmDbStorage\"[^}]*method=\"getFilmsByIds\"")
+                .contains("hikaricp_connections_active")
+                .contains("jvm_memory_used_bytes");
+    }
+}
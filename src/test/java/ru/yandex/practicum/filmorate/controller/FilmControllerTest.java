@@ -13,20 +13,32 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeOperationResult;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -504,4 +516,157 @@ class FilmControllerTest {
         assertEquals(0, filmList2.get(3).getLikes().size(), "Неверное количество лайков.");
         assertEquals(0, filmList2.get(4).getLikes().size(), "Неверное количество лайков.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void test15_getFilmsPage() throws Exception {
+        Film film1 = new Film("film1", "film1",
+                "1967-03-25", 100);
+        film1.setId(1);
+        Film film2 = new Film("film2", "film2",
+                "1967-03-25", 100);
+        film2.setId(2);
+
+        when(filmService.findPage(0, 2)).thenReturn(new Page<>(List.of(film1, film2), 2));
+        when(filmService.findPage(2, 2)).thenReturn(new Page<>(List.of(), null));
+
+        mockMvc.perform(get("/films").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "2"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].name").value("film2"));
+
+        mockMvc.perform(get("/films").param("limit", "2").param("after", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    void test16_exportFilms() throws Exception {
+        Film film1 = new Film("film1", "film1",
+                "1967-03-25", 100);
+        Film film2 = new Film("film2", "film2",
+                "1967-03-25", 100);
+
+        doAnswer(invocation -> {
+            Consumer<List<Film>> chunkConsumer = invocation.getArgument(0);
+            chunkConsumer.accept(List.of(film1));
+            chunkConsumer.accept(List.of(film2));
+            return null;
+        }).when(filmService).exportFilms(any());
+
+        MvcResult asyncResult = mockMvc.perform(get("/films/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        MvcResult mvcResult = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn();
+
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length, "Неверное количество строк в выгрузке.");
+        assertEquals("film1", objectMapper.readValue(lines[0], Film.class).getName(), "Неверное название фильма.");
+        assertEquals("film2", objectMapper.readValue(lines[1], Film.class).getName(), "Неверное название фильма.");
+    }
+
+    @Test
+    void test17_applyLikesBatch() throws Exception {
+        List<LikeOperation> operations = List.of(
+                new LikeOperation(1, 1, LikeOperation.Op.ADD),
+                new LikeOperation(2, 1, LikeOperation.Op.REMOVE));
+
+        when(filmService.applyLikes(anyList())).thenReturn(List.of(
+                new LikeOperationResult(1, 1, LikeOperation.Op.ADD, LikeOperationResult.Status.APPLIED),
+                new LikeOperationResult(2, 1, LikeOperation.Op.REMOVE, LikeOperationResult.Status.FILM_NOT_FOUND)));
+
+        mockMvc.perform(post("/films/likes:batch")
+                        .content(objectMapper.writeValueAsString(operations))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].status").value("APPLIED"))
+                .andExpect(jsonPath("$[1].op").value("REMOVE"))
+                .andExpect(jsonPath("$[1].status").value("FILM_NOT_FOUND"));
+    }
+
+    @Test
+    void test18_searchFilms() throws Exception {
+        Film film = new Film("Звездные войны", "Далекая галактика", "1977-05-25", 121);
+        film.setId(1);
+
+        when(filmService.searchFilms("войны", 5)).thenReturn(List.of(film));
+        when(filmService.searchFilms("", 10)).thenThrow(new ValidationException("Поисковый запрос не должен быть пустым"));
+
+        mockMvc.perform(get("/films/search?q=войны&count=5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Звездные войны"));
+        mockMvc.perform(get("/films/search"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void test19_getFilmNotModified() throws Exception {
+        Film film = new Film("name", "description", "2000-01-01", 100);
+        film.setId(1);
+        film.setVersion(3);
+
+        when(filmService.findFilmById(1)).thenReturn(film);
+        when(filmService.getFilmVersion(1)).thenReturn(3);
+
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.version").doesNotExist());
+        mockMvc.perform(get("/films/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+        verify(filmService, times(1)).findFilmById(1);
+
+        mockMvc.perform(get("/films/1").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+    }
+
+    @Test
+    void test20_getFilmWithBufferedLikesHasNoETag() throws Exception {
+        Film film = new Film("name", "description", "2000-01-01", 100);
+        film.setId(1);
+
+        when(filmService.findFilmById(1)).thenReturn(film);
+        when(filmService.getFilmVersion(1)).thenReturn(null);
+
+        mockMvc.perform(get("/films/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("ETag"));
+    }
+
+    @Test
+    void test21_getFilmFromJsonCache() throws Exception {
+        Film film = new Film("name", "description", "2000-01-01", 100);
+        film.setId(1);
+        film.setVersion(3);
+
+        when(filmService.findFilmById(1)).thenReturn(film);
+        when(filmService.getFilmVersion(1)).thenReturn(3);
+
+        mockMvc.perform(get("/films/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(jsonPath("$.name").value("name"));
+        verify(filmService, times(1)).findFilmById(1);
+
+        film.setName("newName");
+        film.setVersion(4);
+        when(filmService.getFilmVersion(1)).thenReturn(4);
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("newName"));
+        verify(filmService, times(2)).findFilmById(1);
+    }
+}
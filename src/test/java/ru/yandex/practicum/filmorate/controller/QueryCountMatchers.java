@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+import ru.yandex.practicum.filmorate.monitoring.QueryCountResponseAdvice;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверки MockMvc на число SQL-выражений в запросе по заголовку {@code X-DB-Queries}.
+ * Работают только с настоящими сервисами и базой, а не с @MockBean.
+ */
+public final class QueryCountMatchers {
+
+    private QueryCountMatchers() {
+    }
+
+    public static ResultMatcher atMost(int statements) {
+        return result -> {
+            String header = result.getResponse().getHeader(QueryCountResponseAdvice.QUERIES_HEADER);
+            assertNotNull(header, "В ответе нет заголовка " + QueryCountResponseAdvice.QUERIES_HEADER);
+            int actual = Integer.parseInt(header);
+            assertTrue(actual <= statements, "Запрос выполнил " + actual + " SQL-выражений, допустимо не больше "
+                    + statements + ": " + result.getRequest().getMethod() + " " + result.getRequest().getRequestURI());
+        };
+    }
+}
@@ -0,0 +1,162 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.practicum.filmorate.monitoring.QueryCountResponseAdvice;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.yandex.practicum.filmorate.controller.QueryCountMatchers.atMost;
+
+/**
+ * Число SQL-выражений на запрос не должно расти вместе с количеством фильмов, жанров, лайков и друзей.
+ * Ответ 304 на условный GET и ответ из кеша JSON стоят одного запроса версии.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class QueryCountTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void filmReadsDoNotDependOnFilmCount() throws Exception {
+        createUser(1);
+        createFilm(1);
+        String queriesForOneFilm = mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(atMost(4))
+                .andReturn().getResponse().getHeader(QueryCountResponseAdvice.QUERIES_HEADER);
+
+        for (int i = 2; i <= 20; i++) {
+            createUser(i);
+            createFilm(i);
+            mockMvc.perform(put("/films/" + i + "/like/" + i)).andExpect(status().isOk());
+            mockMvc.perform(put("/films/" + i + "/like/1")).andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/films"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountResponseAdvice.QUERIES_HEADER, queriesForOneFilm));
+        mockMvc.perform(get("/films").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(atMost(4));
+        mockMvc.perform(get("/films/popular").param("count", "10"))
+                .andExpect(status().isOk())
+                .andExpect(atMost(3));
+        mockMvc.perform(get("/films/2"))
+                .andExpect(status().isOk())
+                .andExpect(atMost(3));
+    }
+
+    @Test
+    void userReadsDoNotDependOnFriendCount() throws Exception {
+        for (int i = 1; i <= 20; i++) {
+            createUser(i);
+        }
+        for (int i = 2; i <= 20; i++) {
+            mockMvc.perform(put("/users/1/friends/" + i)).andExpect(status().isOk());
+            mockMvc.perform(put("/users/" + i + "/friends/1")).andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/users")).andExpect(status().isOk()).andExpect(atMost(1));
+        mockMvc.perform(get("/users/1/friends")).andExpect(status().isOk()).andExpect(atMost(2));
+        mockMvc.perform(get("/users/1/friends/common/2")).andExpect(status().isOk()).andExpect(atMost(3));
+        mockMvc.perform(get("/users/2/suggestions")).andExpect(status().isOk()).andExpect(atMost(2));
+    }
+
+    @Test
+    void headerCountsStatements() throws Exception {
+        createUser(1);
+
+        String queries = mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(QueryCountResponseAdvice.QUERIES_HEADER);
+
+        assertEquals("1", queries, "Неверное число SQL-выражений.");
+    }
+
+    @Test
+    void notModifiedCostsOneStatement() throws Exception {
+        createUser(1);
+        createFilm(1);
+        String etag = mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(QueryCountResponseAdvice.QUERIES_HEADER, "1"));
+        mockMvc.perform(get("/users/1").header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(QueryCountResponseAdvice.QUERIES_HEADER, "1"));
+
+        mockMvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(get("/genres"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountResponseAdvice.QUERIES_HEADER, "0"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=86400, public"));
+    }
+
+    @Test
+    void cachedJsonCostsOneStatement() throws Exception {
+        createUser(1);
+        createFilm(1);
+        mockMvc.perform(get("/films/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/users/1")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountResponseAdvice.QUERIES_HEADER, "1"));
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(QueryCountResponseAdvice.QUERIES_HEADER, "1"));
+
+        mockMvc.perform(put("/films/1/like/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/films/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.likes[0]").value(1));
+        mockMvc.perform(put("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":1,\"email\":\"user1@mail.ru\",\"login\":\"user1\"," +
+                                "\"name\":\"Renamed\",\"birthday\":\"1990-01-01\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Renamed"));
+    }
+
+    private void createUser(int i) throws Exception {
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"user" + i + "@mail.ru\",\"login\":\"user" + i + "\"," +
+                                "\"name\":\"User\",\"birthday\":\"1990-01-01\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private void createFilm(int i) throws Exception {
+        mockMvc.perform(post("/films")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"film" + i + "\",\"description\":\"description\"," +
+                                "\"releaseDate\":\"2000-01-01\",\"duration\":100,\"mpa\":{\"id\":1}," +
+                                "\"genres\":[{\"id\":1},{\"id\":" + (1 + i % 6) + "}]}"))
+                .andExpect(status().isOk());
+    }
+}
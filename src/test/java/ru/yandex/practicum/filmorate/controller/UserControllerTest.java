@@ -12,7 +12,10 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 
 import java.util.List;
@@ -21,8 +24,11 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,6 +46,9 @@ class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private FilmService filmService;
+
     @Test
     void test1_createUser() throws Exception {
         User user = new User("mail@mail.ru", "dolore", "Nick Name", "1946-08-20");
@@ -500,4 +509,68 @@ class UserControllerTest {
 
         assertEquals(0, friends2.size(), "Неверное количество друзей в списке.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void test16_getSuggestedFriends() throws Exception {
+        User suggested = new User("friend@common.ru", "common", "common", "2000-08-20");
+        suggested.setId(3);
+        when(userService.getSuggestedFriends(1, 5)).thenReturn(List.of(suggested));
+
+        MvcResult mvcResult = mockMvc.perform(get("/users/1/suggestions?count=5"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<User> suggestions = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+
+        assertEquals(1, suggestions.size(), "Неверное количество пользователей в списке.");
+        assertEquals(3, suggestions.get(0).getId(), "Неверный id пользователя.");
+
+        when(userService.getSuggestedFriends(1, 10)).thenReturn(List.of());
+        mockMvc.perform(get("/users/1/suggestions"))
+                .andExpect(status().isOk());
+        verify(userService).getSuggestedFriends(1, 10);
+    }
+
+    @Test
+    void test17_getRecommendations() throws Exception {
+        Film film = new Film("name", "description", new Mpa(1, "G"), "2000-01-01", 100);
+        film.setId(7);
+        when(filmService.getRecommendations(1, 3)).thenReturn(List.of(film));
+
+        MvcResult mvcResult = mockMvc.perform(get("/users/1/recommendations?count=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andReturn();
+
+        assertEquals(1, objectMapper.readTree(mvcResult.getResponse().getContentAsString()).size(),
+                "Неверное количество фильмов в списке.");
+
+        when(filmService.getRecommendations(1, 10)).thenReturn(List.of());
+        mockMvc.perform(get("/users/1/recommendations"))
+                .andExpect(status().isOk());
+        verify(filmService).getRecommendations(1, 10);
+    }
+
+    @Test
+    void test18_getUserNotModified() throws Exception {
+        User user = new User("mail@mail.ru", "dolore", "Nick Name", "1946-08-20");
+        user.setId(1);
+        user.setVersion(0);
+
+        when(userService.findUserById(1)).thenReturn(user);
+        when(userService.getUserVersion(1)).thenReturn(0);
+        when(userService.getUserVersion(9999)).thenThrow(new UserNotFoundException("User not found"));
+
+        mockMvc.perform(get("/users/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0\""));
+        mockMvc.perform(get("/users/1").header("If-None-Match", "W/\"5\", \"0\""))
+                .andExpect(status().isNotModified());
+        verify(userService, times(1)).findUserById(1);
+
+        mockMvc.perform(get("/users/9999").header("If-None-Match", "\"0\""))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.controller.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+/**
+ * Реактивный API на настоящем сервере: ответы должны совпадать с MVC. Пачка из двух строк,
+ * чтобы списки собирались из нескольких пачек.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"filmorate.reactive.enabled=true", "filmorate.reactive.chunk-size=2"})
+@AutoConfigureTestDatabase
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class ReactiveApiTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void filmsMatchServletApi() {
+        // given
+        for (int i = 1; i <= 5; i++) {
+            createUser(i);
+            createFilm(i);
+        }
+        for (int i = 1; i <= 5; i++) {
+            for (int userId = 1; userId <= i; userId++) {
+                put("/films/" + i + "/like/" + userId);
+            }
+        }
+
+        // when / then
+        assertSameJson("/films");
+        assertSameJson("/films/3");
+        assertSameJson("/films/popular?count=3");
+        assertThat(read("/reactive/films").size()).isEqualTo(5);
+    }
+
+    @Test
+    void friendsMatchServletApi() {
+        // given
+        for (int i = 1; i <= 5; i++) {
+            createUser(i);
+        }
+        for (int friendId = 2; friendId <= 5; friendId++) {
+            put("/users/1/friends/" + friendId);
+        }
+        put("/users/2/friends/3");
+        put("/users/2/friends/5");
+
+        // when / then
+        assertSameJson("/users/1/friends");
+        assertSameJson("/users/1/friends/common/2");
+        assertSameJson("/users/3/friends");
+    }
+
+    @Test
+    void listsStreamAsNdjson() {
+        // given
+        for (int i = 1; i <= 5; i++) {
+            createFilm(i);
+        }
+
+        // when
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.APPLICATION_NDJSON));
+        ResponseEntity<String> response = restTemplate.exchange("/reactive/films", HttpMethod.GET,
+                new HttpEntity<>(headers), String.class);
+        String body = Objects.requireNonNull(response.getBody());
+
+        // then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(MediaType.APPLICATION_NDJSON.isCompatibleWith(response.getHeaders().getContentType())).isTrue();
+        assertThat(body.split("\n").length).isEqualTo(5);
+        assertThat(body.endsWith("\n")).isTrue();
+    }
+
+    @Test
+    void errorsMatchServletApi() throws JsonProcessingException {
+        // given
+        createUser(1);
+
+        // when
+        ResponseEntity<String> filmNotFound = restTemplate.getForEntity("/reactive/films/999", String.class);
+
+        // then
+        assertThat(filmNotFound.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(objectMapper.readTree(filmNotFound.getBody()).get("message").asText())
+                .isEqualTo("Фильма с id \"999\" нет в хранилище.");
+        assertThat(status("/reactive/users/999/friends")).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(status("/reactive/users/1/friends/common/999")).isEqualTo(HttpStatus.NOT_FOUND);
+        assertThat(status("/reactive/films/popular?count=abc")).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(read("/reactive/users/1/friends").size()).isEqualTo(0);
+    }
+
+    private void assertSameJson(String path) {
+        assertThat(read("/reactive" + path)).isEqualTo(read(path));
+    }
+
+    private JsonNode read(String path) {
+        ResponseEntity<String> response = restTemplate.getForEntity(path, String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        try {
+            return objectMapper.readTree(response.getBody());
+        } catch (JsonProcessingException e) {
+            throw new AssertionError(path + ": " + e.getMessage(), e);
+        }
+    }
+
+    private HttpStatus status(String path) {
+        return restTemplate.getForEntity(path, String.class).getStatusCode();
+    }
+
+    private void createUser(int i) {
+        post("/users", "{\"email\":\"user" + i + "@mail.ru\",\"login\":\"user" + i + "\",\"name\":\"User " + i +
+                "\",\"birthday\":\"1990-01-0" + i + "\"}");
+    }
+
+    private void createFilm(int i) {
+        post("/films", "{\"name\":\"film" + i + "\",\"description\":\"description " + i + "\"," +
+                "\"releaseDate\":\"2000-01-0" + i + "\",\"duration\":" + (90 + i) + "," +
+                "\"mpa\":{\"id\":" + i + "},\"genres\":[{\"id\":" + i + "},{\"id\":6}]}");
+    }
+
+    private void post(String path, String json) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        assertThat(restTemplate.postForEntity(path, new HttpEntity<>(json, headers), String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+
+    private void put(String path) {
+        assertThat(restTemplate.exchange(path, HttpMethod.PUT, null, String.class).getStatusCode())
+                .isEqualTo(HttpStatus.OK);
+    }
+}
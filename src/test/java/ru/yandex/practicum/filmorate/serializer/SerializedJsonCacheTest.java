@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class SerializedJsonCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void entryMatchesOnlyItsVersion() {
+        // given
+        SerializedJsonCache cache = new SerializedJsonCache(objectMapper, 1024);
+
+        // when
+        byte[] json = cache.serialize(1, 3, Map.of("name", "film"));
+
+        // then
+        assertThat(new String(json, StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"film\"}");
+        assertThat(cache.jsonOf(cache.get(1), 3)).isSameAs(json);
+        assertThat(cache.jsonOf(cache.get(1), 4)).isNull();
+        assertThat(cache.jsonOf(cache.get(2), 3)).isNull();
+        assertThat(cache.getHits()).isEqualTo(1L);
+        assertThat(cache.getMisses()).isEqualTo(2L);
+    }
+
+    @Test
+    void unknownVersionIsNotCached() {
+        // given
+        SerializedJsonCache cache = new SerializedJsonCache(objectMapper, 1024);
+
+        // when
+        cache.serialize(1, null, Map.of("name", "film"));
+
+        // then
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    void olderVersionDoesNotReplaceNewer() {
+        // given
+        SerializedJsonCache cache = new SerializedJsonCache(objectMapper, 1024);
+        byte[] newer = cache.serialize(1, 5, Map.of("version", 5));
+
+        // when
+        cache.serialize(1, 4, Map.of("version", 4));
+
+        // then
+        assertThat(cache.jsonOf(cache.get(1), 5)).isSameAs(newer);
+        assertThat(cache.jsonOf(cache.get(1), 4)).isNull();
+    }
+
+    @Test
+    void invalidate() {
+        // given
+        SerializedJsonCache cache = new SerializedJsonCache(objectMapper, 1024);
+        cache.serialize(1, 0, Map.of("name", "film"));
+
+        // when
+        cache.invalidate(1);
+
+        // then
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.getBytes()).isEqualTo(0L);
+    }
+
+    @Test
+    void leastRecentlyReadEntriesAreEvicted() {
+        // given
+        // каждая запись - 98 байт JSON и 64 байта служебных, в лимит помещаются три
+        SerializedJsonCache cache = new SerializedJsonCache(objectMapper, 500);
+        String value = "x".repeat(90);
+        for (int id = 1; id <= 3; id++) {
+            cache.serialize(id, 0, Map.of("v", value));
+        }
+
+        // when
+        cache.get(1);
+        cache.serialize(4, 0, Map.of("v", value));
+
+        // then
+        assertThat(cache.getSize()).isEqualTo(3);
+        assertThat(cache.getBytes()).isLessThanOrEqualTo(500L);
+        assertThat(cache.get(1)).isNotNull();
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(3)).isNotNull();
+        assertThat(cache.get(4)).isNotNull();
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FilmRecommendationIndexTest {
+
+    private FilmLikesDao filmLikesDao;
+    private FilmRecommendationIndex index;
+
+    @BeforeEach
+    void setUp() {
+        filmLikesDao = mock(FilmLikesDao.class);
+        index = new FilmRecommendationIndex(filmLikesDao, 2);
+    }
+
+    @Test
+    void recommendBeforeRefresh() {
+        // then
+        assertThat(index.recommend(IntBitmap.of(1, 2), 10)).isEqualTo(new int[0]);
+    }
+
+    @Test
+    void recommend() {
+        // given
+        // фильм 1 лайкают те же, кто лайкает 2; фильм 3 пересекается с 1 слабее; 4 ни с чем не связан
+        when(filmLikesDao.findAllLikes()).thenReturn(Map.of(
+                1, IntBitmap.of(10, 11, 12),
+                2, IntBitmap.of(10, 11, 12),
+                3, IntBitmap.of(12, 13),
+                4, IntBitmap.of(14)));
+        index.refresh();
+
+        // then
+        assertThat(index.recommend(IntBitmap.of(1), 10)).isEqualTo(new int[]{2, 3});
+        assertThat(index.recommend(IntBitmap.of(1), 1)).isEqualTo(new int[]{2});
+        assertThat(index.recommend(IntBitmap.of(1, 2), 10)).isEqualTo(new int[]{3});
+        assertThat(index.recommend(IntBitmap.of(4), 10)).isEqualTo(new int[0]);
+        assertThat(index.recommend(IntBitmap.of(100), 10)).isEqualTo(new int[0]);
+    }
+
+    @Test
+    void refreshSplitsWorkAcrossTasks() {
+        // given
+        // фильмов больше, чем считает одна задача; каждый пользователь лайкает два соседних фильма
+        Map<Integer, IntBitmap> likes = new HashMap<>();
+        for (int filmId = 1; filmId <= 500; filmId++) {
+            likes.put(filmId, IntBitmap.of(filmId, filmId + 1000));
+        }
+        for (int filmId = 1; filmId < 500; filmId++) {
+            likes.get(filmId + 1).add(filmId);
+        }
+        when(filmLikesDao.findAllLikes()).thenReturn(likes);
+
+        // when
+        index.refresh();
+
+        // then
+        assertThat(index.recommend(IntBitmap.of(250), 10)).isEqualTo(new int[]{249, 251});
+        assertThat(index.recommend(IntBitmap.of(500), 10)).isEqualTo(new int[]{499});
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.utils.TextTokenizer;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class FilmSearchIndexTest {
+
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        FilmStorage filmStorage = mock(FilmStorage.class);
+        doAnswer(invocation -> {
+            Consumer<List<Film>> consumer = invocation.getArgument(1);
+            consumer.accept(List.of(
+                    film(1, "Звёздные войны", "Далекая-далекая галактика"),
+                    film(2, "Война и мир", "Роман о войне 1812 года"),
+                    film(3, "Toy Story", "Toys come to life"),
+                    film(4, "Movie Stories", "A movie about movies and a war")));
+            return null;
+        }).when(filmStorage).streamFilms(anyInt(), any());
+        index = new FilmSearchIndex(filmStorage);
+        index.load();
+    }
+
+    @Test
+    void tokenize() {
+        // then
+        assertThat(TextTokenizer.tokenize("Звёздных  ВОЙН, часть-2"))
+                .isEqualTo(TextTokenizer.tokenize("звездные войны часть 2"));
+        assertThat(TextTokenizer.tokenize("Stories of movies")).isEqualTo(List.of("stori", "of", "movi"));
+        assertThat(TextTokenizer.tokenize("story movie")).isEqualTo(List.of("stori", "movi"));
+        assertThat(TextTokenizer.tokenize(null)).isEqualTo(List.of());
+    }
+
+    @Test
+    void searchRanksByRelevance() {
+        // then
+        assertThat(index.search("звездных войн", 10)).isEqualTo(new int[]{1, 2});
+        assertThat(index.search("роман о войне", 10)).isEqualTo(new int[]{2, 1});
+        assertThat(index.search("роман о войне", 1)).isEqualTo(new int[]{2});
+        assertThat(index.search("movies", 10)).isEqualTo(new int[]{4});
+        assertThat(index.search("story", 10)).isEqualTo(new int[]{3, 4});
+        assertThat(index.search("галактика 1812", 10)).isEqualTo(new int[]{1, 2});
+        assertThat(index.search("терминатор", 10)).isEqualTo(new int[0]);
+        assertThat(index.search("!!!", 10)).isEqualTo(new int[0]);
+    }
+
+    @Test
+    void indexReplacesPreviousVersion() {
+        // when
+        index.index(film(1, "Терминатор", "Восстание машин"));
+        index.index(film(5, "Терминатор 2", "Судный день"));
+        index.remove(3);
+
+        // then
+        assertThat(index.search("звездные", 10)).isEqualTo(new int[0]);
+        assertThat(index.search("терминатор", 10)).isEqualTo(new int[]{1, 5});
+        assertThat(index.search("toy", 10)).isEqualTo(new int[0]);
+    }
+
+    private static Film film(int id, String name, String description) {
+        Film film = new Film(name, description, "2000-01-01", 100);
+        film.setId(id);
+        return film;
+    }
+}
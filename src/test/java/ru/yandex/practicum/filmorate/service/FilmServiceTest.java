@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.serializer.SerializedJsonCache;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDao;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class FilmServiceTest {
+
+    private SerializedJsonCache filmJsonCache;
+    private PopularityLeaderboard leaderboard;
+    private FilmService filmService;
+
+    @BeforeEach
+    void setUp() {
+        FilmLikesDao filmLikesDao = mock(FilmLikesDao.class);
+        when(filmLikesDao.findExistingFilmIds(anyCollection())).thenReturn(IntBitmap.of(1));
+        when(filmLikesDao.findExistingUserIds(anyCollection())).thenReturn(IntBitmap.of(10));
+        when(filmLikesDao.findLikes(any(), any())).thenReturn(new HashMap<>());
+        when(filmLikesDao.applyLikes(anyCollection())).thenReturn(Map.of(1, 1));
+        filmJsonCache = mock(SerializedJsonCache.class);
+        leaderboard = new PopularityLeaderboard(filmLikesDao);
+        filmService = new FilmService(mock(FilmStorage.class), mock(UserService.class), filmLikesDao,
+                mock(GenreDao.class), leaderboard, mock(ReferenceDataRegistry.class),
+                mock(FilmRecommendationIndex.class), mock(LikeWriteBuffer.class), mock(FilmSearchIndex.class),
+                filmJsonCache);
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void applyLikesUpdatesLeaderboardAfterCommit() {
+        // when
+        filmService.applyLikes(List.of(new LikeOperation(1, 10, LikeOperation.Op.ADD)));
+
+        // then
+        assertThat(leaderboard.getTop(1)).isEqualTo(List.of());
+        verify(filmJsonCache, never()).invalidate(anyInt());
+
+        // when
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // then
+        assertThat(leaderboard.getTop(1)).isEqualTo(List.of(1));
+        verify(filmJsonCache).invalidate(1);
+    }
+
+    @Test
+    void applyLikesKeepsLeaderboardOnRollback() {
+        // when
+        filmService.applyLikes(List.of(new LikeOperation(1, 10, LikeOperation.Op.ADD)));
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // then
+        assertThat(leaderboard.getTop(1)).isEqualTo(List.of());
+        verify(filmJsonCache, never()).invalidate(anyInt());
+    }
+}
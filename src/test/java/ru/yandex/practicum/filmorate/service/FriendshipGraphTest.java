@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.dao.FriendshipDao;
+
+import java.util.*;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FriendshipGraphTest {
+
+    private FriendshipDao friendshipDao;
+    private FriendshipGraph friendshipGraph;
+
+    @BeforeEach
+    void setUp() {
+        friendshipDao = mock(FriendshipDao.class);
+        when(friendshipDao.findAllFriendIds()).thenReturn(Map.of(
+                1, List.of(5, 2, 3, 2),
+                2, List.of(3, 5, 7)));
+        friendshipGraph = new FriendshipGraph(friendshipDao);
+        friendshipGraph.load();
+    }
+
+    @Test
+    void load() {
+        // then
+        assertThat(friendshipGraph.getFriendIds(1)).isEqualTo(new int[]{2, 3, 5});
+        assertThat(friendshipGraph.getFriendIds(2)).isEqualTo(new int[]{3, 5, 7});
+        assertThat(friendshipGraph.getFriendIds(3)).isEqualTo(new int[0]);
+        assertThat(friendshipGraph.getFriendIds(100)).isEqualTo(new int[0]);
+    }
+
+    @Test
+    void addAndRemoveFriend() {
+        // when
+        friendshipGraph.addFriend(1, 4);
+        friendshipGraph.addFriend(1, 4);
+        friendshipGraph.addFriend(100, 1);
+        friendshipGraph.removeFriend(1, 2);
+        friendshipGraph.removeFriend(1, 9);
+
+        // then
+        assertThat(friendshipGraph.getFriendIds(1)).isEqualTo(new int[]{3, 4, 5});
+        assertThat(friendshipGraph.getFriendIds(100)).isEqualTo(new int[]{1});
+    }
+
+    @Test
+    void getMutualFriendIds() {
+        // then
+        assertThat(friendshipGraph.getMutualFriendIds(1, 2)).isEqualTo(new int[]{3, 5});
+        assertThat(friendshipGraph.getMutualFriendIds(2, 1)).isEqualTo(new int[]{3, 5});
+        assertThat(friendshipGraph.getMutualFriendIds(1, 3)).isEqualTo(new int[0]);
+    }
+
+    @Test
+    void getMutualFriendIdsForVeryDifferentSizes() {
+        // given
+        // у первого пользователя много друзей, у второго мало: пересечение ищется галопом
+        Random random = new Random(7);
+        TreeSet<Integer> friends1 = new TreeSet<>();
+        TreeSet<Integer> friends2 = new TreeSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            friends1.add(random.nextInt(20_000) + 10);
+        }
+        for (int i = 0; i < 50; i++) {
+            friends2.add(random.nextInt(20_000) + 10);
+        }
+        friends2.add(friends1.first());
+        friends2.add(friends1.last());
+        when(friendshipDao.findAllFriendIds()).thenReturn(Map.of(
+                1, new ArrayList<>(friends1),
+                2, new ArrayList<>(friends2)));
+        friendshipGraph.load();
+
+        TreeSet<Integer> expected = new TreeSet<>(friends1);
+        expected.retainAll(friends2);
+
+        // when
+        int[] mutualFriendIds = friendshipGraph.getMutualFriendIds(2, 1);
+
+        // then
+        assertThat(mutualFriendIds).isEqualTo(expected.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Test
+    void getSuggestedFriendIds() {
+        // given
+        // друзья пользователя 1: 2, 3, 5; у них в друзьях 3, 5, 7, затем 1, 7, 8 и 9
+        when(friendshipDao.findAllFriendIds()).thenReturn(Map.of(
+                1, List.of(2, 3, 5),
+                2, List.of(3, 5, 7),
+                3, List.of(1, 7, 8),
+                5, List.of(9)));
+        friendshipGraph.load();
+
+        // then
+        assertThat(friendshipGraph.getSuggestedFriendIds(1, 10)).isEqualTo(new int[]{7, 8, 9});
+        assertThat(friendshipGraph.getSuggestedFriendIds(1, 1)).isEqualTo(new int[]{7});
+        assertThat(friendshipGraph.getSuggestedFriendIds(4, 10)).isEqualTo(new int[0]);
+    }
+
+    @Test
+    void getSuggestedFriendIdsMatchesFullSort() {
+        // given
+        Random random = new Random(11);
+        Map<Integer, List<Integer>> friendIds = new HashMap<>();
+        for (int userId = 1; userId <= 300; userId++) {
+            List<Integer> friends = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                friends.add(random.nextInt(300) + 1);
+            }
+            friendIds.put(userId, friends);
+        }
+        when(friendshipDao.findAllFriendIds()).thenReturn(friendIds);
+        friendshipGraph.load();
+
+        // then
+        // счетчик общих друзей переиспользуется между вызовами, поэтому проверяется несколько пользователей подряд
+        for (int userId = 1; userId <= 5; userId++) {
+            assertThat(friendshipGraph.getSuggestedFriendIds(userId, 20)).isEqualTo(suggestionsByFullSort(userId, 20));
+        }
+    }
+
+    private int[] suggestionsByFullSort(int userId, int count) {
+        int[] friends = friendshipGraph.getFriendIds(userId);
+        Map<Integer, Integer> mutualCounts = new HashMap<>();
+        for (int friendId : friends) {
+            for (int candidateId : friendshipGraph.getFriendIds(friendId)) {
+                if (candidateId != userId && Arrays.binarySearch(friends, candidateId) < 0) {
+                    mutualCounts.merge(candidateId, 1, Integer::sum);
+                }
+            }
+        }
+        return mutualCounts.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(count)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+    }
+}
@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LikeCountReconciliationJobTest {
+
+    private FilmLikesDao filmLikesDao;
+    private PopularityLeaderboard leaderboard;
+    private LikeCountReconciliationJob job;
+
+    @BeforeEach
+    void setUp() {
+        filmLikesDao = mock(FilmLikesDao.class);
+        when(filmLikesDao.getLikeCounts()).thenReturn(Map.of(1, 5, 2, 1));
+        leaderboard = new PopularityLeaderboard(filmLikesDao);
+        leaderboard.load();
+        job = new LikeCountReconciliationJob(filmLikesDao, leaderboard);
+    }
+
+    @Test
+    void reconcileReloadsLeaderboard() {
+        // given
+        when(filmLikesDao.reconcileLikeCounts()).thenReturn(2);
+        when(filmLikesDao.getLikeCounts()).thenReturn(Map.of(1, 0, 2, 3));
+
+        // when
+        job.reconcile();
+
+        // then
+        assertThat(leaderboard.getTop(10)).isEqualTo(List.of(2, 1));
+    }
+
+    @Test
+    void reconcileWithoutChangesKeepsLeaderboard() {
+        // given
+        when(filmLikesDao.reconcileLikeCounts()).thenReturn(0);
+
+        // when
+        job.reconcile();
+
+        // then
+        verify(filmLikesDao, times(1)).getLikeCounts();
+        assertThat(leaderboard.getTop(10)).isEqualTo(List.of(1, 2));
+    }
+}
@@ -0,0 +1,175 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class LikeWriteBufferTest {
+
+    @TempDir
+    Path journalDir;
+
+    private FilmLikesDao filmLikesDao;
+    private PopularityLeaderboard leaderboard;
+    private LikeWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        filmLikesDao = mock(FilmLikesDao.class);
+        when(filmLikesDao.applyLikes(anyCollection())).thenReturn(Map.of());
+        leaderboard = new PopularityLeaderboard(filmLikesDao);
+        buffer = newBuffer();
+        buffer.init();
+    }
+
+    @Test
+    void opposingChangesCancelOut() {
+        // when
+        boolean added = buffer.record(film(1), 10, true);
+        boolean removed = buffer.record(film(1), 10, false);
+        boolean addedAgain = buffer.record(film(1), 11, true);
+        boolean duplicate = buffer.record(film(1), 11, true);
+        buffer.flush();
+
+        // then
+        assertThat(added).isTrue();
+        assertThat(removed).isTrue();
+        assertThat(addedAgain).isTrue();
+        assertThat(duplicate).isFalse();
+        assertThat(flushedOperations())
+                .isEqualTo(List.of(new LikeOperation(1, 11, LikeOperation.Op.ADD)));
+        assertThat(leaderboard.getTop(1)).isEqualTo(List.of(1));
+    }
+
+    @Test
+    void readsSeeBufferedChanges() {
+        // given
+        Film film = film(1, 12);
+        IntBitmap likedByUser = IntBitmap.of(1);
+
+        // when
+        buffer.record(film, 10, true);
+        buffer.record(film, 12, false);
+        buffer.record(film(2), 12, true);
+        buffer.mergeInto(film);
+        buffer.mergeInto(12, likedByUser);
+
+        // then
+        assertThat(film.getLikes()).isEqualTo(List.of(10));
+        assertThat(likedByUser).isEqualTo(IntBitmap.of(2));
+        verifyNoInteractions(filmLikesDao);
+    }
+
+    @Test
+    void bufferedChangesResetFilmVersion() {
+        // given
+        when(filmLikesDao.applyLikes(anyCollection())).thenReturn(Map.of(1, 1));
+        Film film = film(1);
+        film.setVersion(5);
+        Film otherFilm = film(2);
+        otherFilm.setVersion(5);
+
+        // when
+        buffer.record(film, 10, true);
+        buffer.mergeInto(List.of(film, otherFilm));
+        boolean pendingBeforeDrain = buffer.hasPending(1);
+        buffer.drain();
+
+        // then
+        assertThat(film.getVersion()).isNull();
+        assertThat(otherFilm.getVersion()).isEqualTo(5);
+        assertThat(pendingBeforeDrain).isTrue();
+        assertThat(buffer.hasPending(1)).isFalse();
+        assertThat(buffer.hasPending(2)).isFalse();
+    }
+
+    @Test
+    void journalIsReplayedAfterCrash() {
+        // given
+        buffer.record(film(1), 10, true);
+        buffer.record(film(2), 10, true);
+        buffer.record(film(2), 10, false);
+
+        // when
+        LikeWriteBuffer restarted = newBuffer();
+        restarted.init();
+
+        // then
+        assertThat(flushedOperations()).isEqualTo(List.of(
+                new LikeOperation(1, 10, LikeOperation.Op.ADD),
+                new LikeOperation(2, 10, LikeOperation.Op.REMOVE)));
+    }
+
+    @Test
+    void shutdownDrainsBufferAndRemovesJournal() throws IOException {
+        // given
+        buffer.record(film(1), 10, true);
+
+        // when
+        buffer.shutdown();
+
+        // then
+        assertThat(flushedOperations()).isEqualTo(List.of(new LikeOperation(1, 10, LikeOperation.Op.ADD)));
+        try (var files = Files.list(journalDir)) {
+            assertThat(files.count()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    void failedFlushKeepsChanges() {
+        // given
+        buffer.record(film(1), 10, true);
+        when(filmLikesDao.applyLikes(anyCollection()))
+                .thenThrow(new DataAccessResourceFailureException("база недоступна"))
+                .thenReturn(Map.of(1, 1));
+
+        // when
+        assertThatThrownBy(buffer::flush).isInstanceOf(DataAccessResourceFailureException.class);
+        Film film = film(1);
+        buffer.mergeInto(film);
+        buffer.flush();
+
+        // then
+        assertThat(film.getLikes()).isEqualTo(List.of(10));
+        verify(filmLikesDao, times(2)).applyLikes(anyCollection());
+    }
+
+    private static Film film(int id, Integer... likes) {
+        Film film = new Film("name", "description", "2000-01-01", 100);
+        film.setId(id);
+        film.setLikes(List.of(likes));
+        return film;
+    }
+
+    private LikeWriteBuffer newBuffer() {
+        return new LikeWriteBuffer(filmLikesDao, leaderboard, mock(PlatformTransactionManager.class),
+                Runnable::run, true, 1000, journalDir.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LikeOperation> flushedOperations() {
+        ArgumentCaptor<Collection<LikeOperation>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(filmLikesDao).applyLikes(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+}
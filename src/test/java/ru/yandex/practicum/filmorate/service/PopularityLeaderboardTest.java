@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.dao.FilmLikesDao;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PopularityLeaderboardTest {
+
+    private PopularityLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        FilmLikesDao filmLikesDao = mock(FilmLikesDao.class);
+        when(filmLikesDao.getLikeCounts()).thenReturn(Map.of(1, 0, 2, 3, 3, 1, 4, 1));
+        leaderboard = new PopularityLeaderboard(filmLikesDao);
+        leaderboard.load();
+    }
+
+    @Test
+    void getTop() {
+        // then
+        assertThat(leaderboard.getTop(10)).isEqualTo(List.of(2, 3, 4, 1));
+        assertThat(leaderboard.getTop(2)).isEqualTo(List.of(2, 3));
+        assertThat(leaderboard.getTop(0)).isEqualTo(List.of());
+    }
+
+    @Test
+    void incrementAndDecrement() {
+        // when
+        leaderboard.increment(1);
+        leaderboard.increment(1);
+        leaderboard.increment(4);
+        leaderboard.decrement(2);
+        leaderboard.decrement(2);
+        leaderboard.increment(5);
+
+        // then
+        assertThat(leaderboard.getTop(10)).isEqualTo(List.of(1, 4, 2, 3, 5));
+    }
+
+    @Test
+    void concurrentLikes() throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    leaderboard.increment(1);
+                    leaderboard.increment(3);
+                    leaderboard.decrement(3);
+                    leaderboard.getTop(2);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(leaderboard.getTop(4)).isEqualTo(List.of(1, 2, 3, 4));
+        leaderboard.setLikeCount(1, 0);
+        assertThat(leaderboard.getTop(4)).isEqualTo(List.of(2, 3, 4, 1));
+    }
+}
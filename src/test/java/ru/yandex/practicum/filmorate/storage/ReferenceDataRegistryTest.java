@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.dao.GenreDao;
+import ru.yandex.practicum.filmorate.storage.dao.MpaDao;
+
+import java.util.List;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class ReferenceDataRegistryTest {
+
+    private final JdbcTemplate jdbcTemplate;
+    private ReferenceDataRegistry referenceDataRegistry;
+
+    @BeforeEach
+    void setUp() {
+        referenceDataRegistry = new ReferenceDataRegistry(new MpaDao(jdbcTemplate), new GenreDao(jdbcTemplate));
+        referenceDataRegistry.reload();
+    }
+
+    @Test
+    void getMpa() {
+        // then
+        assertThat(referenceDataRegistry.getMpa(3))
+                .isEqualTo(new Mpa(3, "PG-13"))
+                .isSameAs(referenceDataRegistry.getMpa(3));
+        assertThat(referenceDataRegistry.getMpa(0)).isNull();
+        assertThat(referenceDataRegistry.getMpa(9999)).isNull();
+        assertThat(referenceDataRegistry.getMpa(-1)).isNull();
+    }
+
+    @Test
+    void getAllMpa() {
+        // then
+        assertThat(referenceDataRegistry.getAllMpa())
+                .isEqualTo(List.of(new Mpa(1, "G"), new Mpa(2, "PG"), new Mpa(3, "PG-13"),
+                        new Mpa(4, "R"), new Mpa(5, "NC-17")));
+    }
+
+    @Test
+    void getGenre() {
+        // then
+        assertThat(referenceDataRegistry.getAllGenres().size()).isEqualTo(6);
+        assertThat(referenceDataRegistry.getGenre(6)).isSameAs(referenceDataRegistry.getAllGenres().get(5));
+        assertThat(referenceDataRegistry.containsGenre(1)).isTrue();
+        assertThat(referenceDataRegistry.containsGenre(7)).isFalse();
+    }
+
+    @Test
+    void versionDependsOnlyOnContent() {
+        // when
+        long version = referenceDataRegistry.getVersion();
+        referenceDataRegistry.reload();
+
+        // then
+        assertThat(referenceDataRegistry.getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void reload() {
+        // given
+        jdbcTemplate.update("MERGE INTO GENRE (ID, NAME) VALUES (7, 'Вестерн')");
+
+        // when
+        boolean containsBeforeReload = referenceDataRegistry.containsGenre(7);
+        long versionBeforeReload = referenceDataRegistry.getVersion();
+        referenceDataRegistry.reload();
+
+        // then
+        assertThat(containsBeforeReload).isFalse();
+        assertThat(referenceDataRegistry.getGenre(7).getId()).isEqualTo(7);
+        assertThat(referenceDataRegistry.getVersion()).isNotEqualTo(versionBeforeReload);
+    }
+}
@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.storage.bulk;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+/**
+ * Загрузка CSV и NDJSON на базе со схемой приложения. Пачка из двух строк, чтобы NDJSON вставлялся
+ * несколькими запросами.
+ */
+class BulkLoaderTest {
+
+    private static final String URL = "jdbc:h2:mem:bulk-load;DB_CLOSE_DELAY=-1";
+
+    @TempDir
+    Path dir;
+
+    private JdbcTemplate jdbcTemplate;
+    private BulkLoader bulkLoader;
+
+    @BeforeEach
+    void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(URL);
+        // те же учетные данные, что в application.properties, для теста консольного режима
+        dataSource.setUser("sa");
+        dataSource.setPassword("password");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema.sql"),
+                new ClassPathResource("migration/V2__friendship_pk_and_indexes.sql"),
+                new ClassPathResource("migration/V3__version_columns.sql"), new ClassPathResource("data.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        bulkLoader = new BulkLoader(jdbcTemplate, new DataSourceTransactionManager(dataSource), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void csvAndNdjsonAreLoaded() throws IOException {
+        // given
+        Path films = write("films.csv", "id,name,description,mpa_id,release_date,duration",
+                "10,film10,\"комедия, снова\",1,2000-01-01,5400",
+                "20,film20,,2,2001-01-01,6000",
+                "30,film30,d,3,2002-01-01,7200");
+        Path users = write("users.ndjson",
+                "{\"id\":1,\"email\":\"user1@mail.ru\",\"login\":\"user1\",\"name\":\"User\",\"birthday\":\"1990-01-01\"}",
+                "{\"id\":2,\"email\":\"user2@mail.ru\",\"login\":\"user2\",\"birthday\":\"1990-01-02\"}",
+                "{\"id\":3,\"email\":\"user3@mail.ru\",\"login\":\"user3\",\"birthday\":null}");
+        Path genres = write("genres.jsonl", "{\"film_id\":10,\"genre_id\":1}", "{\"film_id\":10,\"genre_id\":2}",
+                "{\"film_id\":30,\"genre_id\":6}");
+        Path likes = write("likes.csv", "FILM_ID,USER_ID", "10,1", "10,2", "10,3", "30,1");
+        Path friends = write("friends.csv", "user_id,friend_id", "1,2", "2,1", "1,3");
+
+        // when
+        long rows = bulkLoader.load(Map.of(BulkTable.FILM, films, BulkTable.USER_ACCOUNT, users,
+                BulkTable.FILM_GENRE, genres, BulkTable.FILM_LIKES, likes, BulkTable.FRIENDSHIP, friends));
+
+        // then
+        assertThat(rows).isEqualTo(16L);
+        assertThat(jdbcTemplate.queryForObject("SELECT DESCRIPTION FROM FILM WHERE ID = 10", String.class))
+                .isEqualTo("комедия, снова");
+        assertThat(jdbcTemplate.queryForObject("SELECT LIKE_COUNT FROM FILM WHERE ID = 10", Integer.class))
+                .isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FRIENDSHIP WHERE FRIEND_STATUS_CONFIRM",
+                Integer.class)).isEqualTo(0);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FILM_GENRE", Integer.class)).isEqualTo(3);
+        assertThat(indexExists("FILM_LIKE_COUNT_IDX")).isTrue();
+        assertThat(indexExists("FILM_LIKES_USER_ID_IDX")).isTrue();
+        assertThat(indexExists("FRIENDSHIP_FRIEND_ID_IDX")).isTrue();
+        jdbcTemplate.update("INSERT INTO FILM (NAME, RELEASE_DATE, DURATION) VALUES ('new', '2003-01-01', 60)");
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(ID) FROM FILM", Integer.class)).isEqualTo(31);
+    }
+
+    @Test
+    void danglingForeignKeyRollsBackEverything() throws IOException {
+        // given
+        Path films = write("films.csv", "id,name,mpa_id,release_date,duration", "1,film1,1,2000-01-01,5400");
+        Path likes = write("likes.ndjson", "{\"film_id\":1,\"user_id\":42}");
+
+        // when / then
+        assertThatThrownBy(() -> bulkLoader.load(Map.of(BulkTable.FILM, films, BulkTable.FILM_LIKES, likes)))
+                .isInstanceOf(DataIntegrityViolationException.class)
+                .hasMessageContaining("FILM_LIKES_USER_ACCOUNT_ID_FK");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FILM", Integer.class)).isEqualTo(0);
+        assertThat(indexExists("FILM_LIKE_COUNT_IDX")).isTrue();
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO FILM_LIKES VALUES (1, 42)"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void unknownColumnIsRejected() throws IOException {
+        // given
+        Path users = write("users.csv", "id,email,login,password", "1,user1@mail.ru,user1,secret");
+
+        // when / then
+        assertThatThrownBy(() -> bulkLoader.load(Map.of(BulkTable.USER_ACCOUNT, users)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("PASSWORD");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM USER_ACCOUNT", Integer.class)).isEqualTo(0);
+    }
+
+    @Test
+    void commandLoadsIntoConfiguredDatabase() throws IOException {
+        // given
+        Path users = write("users.csv", "email,login,birthday", "user1@mail.ru,user1,1990-01-01");
+
+        // when
+        int noFiles = BulkLoadCommand.run("--spring.datasource.url=" + URL);
+        int loaded = BulkLoadCommand.run("--user-account=" + users, "--spring.datasource.url=" + URL);
+
+        // then
+        assertThat(noFiles).isEqualTo(2);
+        assertThat(loaded).isEqualTo(0);
+        assertThat(jdbcTemplate.queryForObject("SELECT LOGIN FROM USER_ACCOUNT", String.class)).isEqualTo("user1");
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(dir.resolve(name), String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private boolean indexExists(String name) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME = ?",
+                Integer.class, name) > 0;
+    }
+}
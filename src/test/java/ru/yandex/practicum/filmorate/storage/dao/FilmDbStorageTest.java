@@ -10,7 +10,9 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 
+import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 
@@ -24,6 +26,7 @@ class FilmDbStorageTest {
     private final JdbcTemplate jdbcTemplate;
 
     private final Mpa mpa = new Mpa(1, "G");
+    private ReferenceDataRegistry referenceDataRegistry;
     private FilmDbStorage filmDbStorage;
     private Film film;
 
@@ -33,7 +36,9 @@ class FilmDbStorageTest {
         film = new Film("name", "description", mpa, "2000-01-01", 100);
         LinkedHashSet<Genre> genres = new LinkedHashSet<>();
         film.setGenres(genres);
-        filmDbStorage = new FilmDbStorage(jdbcTemplate);
+        referenceDataRegistry = new ReferenceDataRegistry(new MpaDao(jdbcTemplate), new GenreDao(jdbcTemplate));
+        referenceDataRegistry.reload();
+        filmDbStorage = new FilmDbStorage(jdbcTemplate, referenceDataRegistry);
     }
 
     @Test
@@ -66,9 +71,7 @@ class FilmDbStorageTest {
     void updateFilm() {
         // given
         Film addedFilm = filmDbStorage.addFilm(film);
-        mpa.setId(2);
-        mpa.setName("PG");
-        Film newFilm = new Film("newName", "newDescription", mpa, "2010-11-11", 392);
+        Film newFilm = new Film("newName", "newDescription", new Mpa(2, "PG"), "2010-11-11", 392);
         newFilm.setId(addedFilm.getId());
         newFilm.setGenres(addedFilm.getGenres());
 
@@ -82,6 +85,24 @@ class FilmDbStorageTest {
                 .isEqualTo(newFilm);
     }
 
+    @Test
+    void updateFilmBumpsVersion() {
+        // given
+        Film addedFilm = filmDbStorage.addFilm(film);
+        int versionBefore = filmDbStorage.getFilmVersion(addedFilm.getId());
+
+        // when
+        filmDbStorage.updateFilm(addedFilm);
+        filmDbStorage.updateFilm(addedFilm);
+
+        // then
+        assertThat(versionBefore).isEqualTo(0);
+        assertThat(filmDbStorage.getFilmVersion(addedFilm.getId())).isEqualTo(2);
+        assertThat(filmDbStorage.getFilm(addedFilm.getId()).getVersion()).isEqualTo(2);
+        assertThatThrownBy(() -> filmDbStorage.getFilmVersion(-1))
+                .isInstanceOf(EmptyResultDataAccessException.class);
+    }
+
     @Test
     void updateFilmNotFound() {
         // given
@@ -126,4 +147,128 @@ class FilmDbStorageTest {
                 .usingRecursiveComparison()
                 .isEqualTo(addedFilm);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getFilmsByIds() {
+        // given
+        Film newFilm = filmDbStorage.addFilm(new Film("newName", "newDescription", mpa,
+                "2010-11-11", 392));
+        Film newFilm2 = filmDbStorage.addFilm(new Film("newName2", "newDescription2", mpa,
+                "1930-03-20", 68));
+
+        // when
+        List<Film> filmsFromDb = filmDbStorage.getFilmsByIds(List.of(newFilm2.getId(), 9999, newFilm.getId()));
+
+        // then
+        assertThat(filmsFromDb)
+                .isNotNull()
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(newFilm2, newFilm));
+    }
+
+    @Test
+    void getFilmsStatementCountDoesNotDependOnFilmCount() {
+        // given
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(jdbcTemplate.getDataSource());
+        JdbcTemplate countingJdbcTemplate = new JdbcTemplate(dataSource);
+        FilmDbStorage countingStorage = new FilmDbStorage(countingJdbcTemplate, referenceDataRegistry);
+        GenreDao genreDao = new GenreDao(countingJdbcTemplate);
+        Film addedFilm = countingStorage.addFilm(film);
+        genreDao.updateFilmGenres(addedFilm.getId(), List.of(new Genre(1, "Комедия"), new Genre(2, "Драма")));
+
+        // when
+        dataSource.reset();
+        countingStorage.getFilms();
+        int statementsForOneFilm = dataSource.getStatements();
+
+        for (int i = 0; i < 20; i++) {
+            Film newFilm = countingStorage.addFilm(new Film("name" + i, "description" + i, mpa,
+                    "2000-01-01", 100));
+            genreDao.updateFilmGenres(newFilm.getId(), List.of(new Genre(3, "Мультфильм")));
+        }
+        dataSource.reset();
+        List<Film> films = countingStorage.getFilms();
+        int statementsForManyFilms = dataSource.getStatements();
+
+        // then
+        assertThat(films.size()).isEqualTo(21);
+        assertThat(films.get(20).getGenres().get(0).getId()).isEqualTo(3);
+        assertThat(statementsForOneFilm).isEqualTo(3);
+        assertThat(statementsForManyFilms).isEqualTo(statementsForOneFilm);
+    }
+
+    @Test
+    void addAndUpdateFilmWithoutReadBack() {
+        // given
+        StatementCountingDataSource dataSource = new StatementCountingDataSource(jdbcTemplate.getDataSource());
+        FilmDbStorage countingStorage = new FilmDbStorage(new JdbcTemplate(dataSource), referenceDataRegistry);
+
+        // when
+        Film addedFilm = countingStorage.addFilm(film);
+        int statementsForAdd = dataSource.getStatements();
+
+        dataSource.reset();
+        addedFilm.setName("newName");
+        Film updatedFilm = countingStorage.updateFilm(addedFilm);
+        int statementsForUpdate = dataSource.getStatements();
+
+        // then
+        assertThat(addedFilm.getId()).isPositive();
+        assertThat(statementsForAdd).isEqualTo(1);
+        assertThat(statementsForUpdate).isEqualTo(1);
+        assertThat(updatedFilm.getVersion()).isNull();
+        assertThat(filmDbStorage.getFilm(addedFilm.getId()))
+                .usingRecursiveComparison()
+                .ignoringFields("version")
+                .isEqualTo(updatedFilm);
+    }
+
+    @Test
+    void getFilmsPage() {
+        // given
+        Film newFilm = filmDbStorage.addFilm(new Film("newName", "newDescription", mpa,
+                "2010-11-11", 392));
+        Film newFilm2 = filmDbStorage.addFilm(new Film("newName2", "newDescription2", mpa,
+                "1930-03-20", 68));
+        Film newFilm3 = filmDbStorage.addFilm(new Film("newName3", "newDescription3", mpa,
+                "1950-05-05", 90));
+
+        // when
+        List<Film> firstPage = filmDbStorage.getFilms(0, 2);
+        List<Film> secondPage = filmDbStorage.getFilms(firstPage.get(1).getId(), 2);
+
+        // then
+        assertThat(firstPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(newFilm, newFilm2));
+        assertThat(secondPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(newFilm3));
+    }
+
+    @Test
+    void streamFilms() {
+        // given
+        List<Film> addedFilms = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            addedFilms.add(filmDbStorage.addFilm(new Film("name" + i, "description" + i, mpa,
+                    "2000-01-01", 100)));
+        }
+        new GenreDao(jdbcTemplate).updateFilmGenres(addedFilms.get(4).getId(), List.of(new Genre(2, "Драма")));
+        List<Integer> chunkSizes = new ArrayList<>();
+        List<Film> streamedFilms = new ArrayList<>();
+
+        // when
+        filmDbStorage.streamFilms(2, chunk -> {
+            chunkSizes.add(chunk.size());
+            streamedFilms.addAll(chunk);
+        });
+
+        // then
+        assertThat(chunkSizes).isEqualTo(List.of(2, 2, 1));
+        assertThat(streamedFilms)
+                .usingRecursiveComparison()
+                .isEqualTo(filmDbStorage.getFilms());
+        assertThat(streamedFilms.get(4).getGenres().get(0).getId()).isEqualTo(2);
+    }
+}
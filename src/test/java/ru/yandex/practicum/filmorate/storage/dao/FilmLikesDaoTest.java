@@ -7,10 +7,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
 import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.utils.IntBitmap;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -20,6 +24,7 @@ class FilmLikesDaoTest {
 
     private final JdbcTemplate jdbcTemplate;
     private FilmLikesDao filmLikesDao;
+    private ReferenceDataRegistry referenceDataRegistry;
     private FilmDbStorage filmDbStorage;
     private Film film;
     private User user1;
@@ -27,9 +32,12 @@ class FilmLikesDaoTest {
 
     @BeforeEach
     void setUp() {
+        referenceDataRegistry = new ReferenceDataRegistry(new MpaDao(jdbcTemplate),
+                new GenreDao(jdbcTemplate));
+        referenceDataRegistry.reload();
         filmLikesDao = new FilmLikesDao(jdbcTemplate);
         UserDbStorage userDbStorage = new UserDbStorage(jdbcTemplate);
-        filmDbStorage = new FilmDbStorage(jdbcTemplate);
+        filmDbStorage = new FilmDbStorage(jdbcTemplate, referenceDataRegistry);
         film = filmDbStorage.addFilm(new Film("name", "description", new Mpa(1, "G"), "2000-01-01",
                 100));
         user1 = userDbStorage.createUser(new User("user1@email.ru", "vanya123", "Ivan Petrov",
@@ -67,25 +75,20 @@ class FilmLikesDaoTest {
     }
 
     @Test
-    void getMostPopularFilms() {
+    void getLikeCounts() {
         // given
-        Film film1 = filmDbStorage.addFilm(new Film("film1", "film1", new Mpa(1, "G"),
-                "2000-10-10", 100));
         Film film2 = filmDbStorage.addFilm(new Film("film2", "film2", new Mpa(2, "PG"),
                 "1990-01-01", 123));
-        filmLikesDao.addLike(film1.getId(), user1.getId());
         filmLikesDao.addLike(film2.getId(), user1.getId());
         filmLikesDao.addLike(film2.getId(), user2.getId());
+        // счетчик читается из FILM.LIKE_COUNT, а не пересчитывается по FILM_LIKES
+        jdbcTemplate.update("UPDATE FILM SET LIKE_COUNT = 5 WHERE ID = ?", film.getId());
 
         // when
-        List<Film> mostPopularFilms = filmLikesDao.getMostPopularFilms(10);
+        Map<Integer, Integer> likeCounts = filmLikesDao.getLikeCounts();
 
         // then
-        assertThat(mostPopularFilms)
-                .isNotNull()
-                .usingRecursiveComparison()
-                .isEqualTo(List.of(filmDbStorage.getFilm(film2.getId()), filmDbStorage.getFilm(film1.getId()),
-                        filmDbStorage.getFilm(film.getId())));
+        assertThat(likeCounts).isEqualTo(Map.of(film.getId(), 5, film2.getId(), 2));
     }
 
     @Test
@@ -103,4 +106,106 @@ class FilmLikesDaoTest {
                 .usingRecursiveComparison()
                 .isEqualTo(List.of(user1.getId(), user2.getId()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void likeCountFollowsLikes() {
+        // when
+        filmLikesDao.addLike(film.getId(), user1.getId());
+        filmLikesDao.addLike(film.getId(), user2.getId());
+        filmLikesDao.removeLike(film.getId(), user1.getId());
+        filmLikesDao.removeLike(film.getId(), user1.getId());
+
+        // then
+        assertThat(filmLikesDao.getLikeCount(film.getId())).isEqualTo(1);
+    }
+
+    @Test
+    void likeChangesBumpFilmVersion() {
+        // when
+        filmLikesDao.addLike(film.getId(), user1.getId());
+        filmLikesDao.removeLike(film.getId(), user1.getId());
+        filmLikesDao.removeLike(film.getId(), user1.getId());
+        filmLikesDao.applyLikes(List.of(new LikeOperation(film.getId(), user2.getId(), LikeOperation.Op.ADD)));
+
+        // then
+        assertThat(filmDbStorage.getFilmVersion(film.getId())).isEqualTo(3);
+    }
+
+    @Test
+    void updateFilmLikesRecountsLikeCount() {
+        // given
+        filmLikesDao.addLike(film.getId(), user1.getId());
+
+        // when
+        filmLikesDao.updateFilmLikes(film.getId(), List.of(user1.getId(), user2.getId()));
+
+        // then
+        assertThat(filmLikesDao.getLikeCount(film.getId())).isEqualTo(2);
+    }
+
+    @Test
+    void reconcileLikeCounts() {
+        // given
+        filmLikesDao.addLike(film.getId(), user1.getId());
+        filmLikesDao.addLike(film.getId(), user2.getId());
+        jdbcTemplate.update("UPDATE FILM SET LIKE_COUNT = 0 WHERE ID = ?", film.getId());
+
+        // when
+        int fixed = filmLikesDao.reconcileLikeCounts();
+
+        // then
+        assertThat(fixed).isEqualTo(1);
+        assertThat(filmLikesDao.getLikeCount(film.getId())).isEqualTo(2);
+        assertThat(filmLikesDao.reconcileLikeCounts()).isEqualTo(0);
+    }
+
+    @Test
+    void findAllLikesAndFilmIdsByUserId() {
+        // given
+        Film film2 = filmDbStorage.addFilm(new Film("name2", "description2", new Mpa(1, "G"), "2000-01-01",
+                100));
+        filmLikesDao.addLike(film.getId(), user1.getId());
+        filmLikesDao.addLike(film.getId(), user2.getId());
+        filmLikesDao.addLike(film2.getId(), user2.getId());
+
+        // when
+        Map<Integer, IntBitmap> likes = filmLikesDao.findAllLikes();
+        IntBitmap filmIds = filmLikesDao.findFilmIdsByUserId(user2.getId());
+
+        // then
+        assertThat(likes.get(film.getId())).isEqualTo(IntBitmap.of(user1.getId(), user2.getId()));
+        assertThat(likes.get(film2.getId())).isEqualTo(IntBitmap.of(user2.getId()));
+        assertThat(filmIds).isEqualTo(IntBitmap.of(film.getId(), film2.getId()));
+    }
+
+    @Test
+    void applyLikes() {
+        // given
+        filmLikesDao.addLike(film.getId(), user1.getId());
+        List<LikeOperation> operations = List.of(
+                new LikeOperation(film.getId(), user1.getId(), LikeOperation.Op.REMOVE),
+                new LikeOperation(film.getId(), user2.getId(), LikeOperation.Op.ADD));
+
+        // when
+        Map<Integer, Integer> likeCounts = filmLikesDao.applyLikes(operations);
+        filmLikesDao.applyLikes(operations);
+
+        // then
+        assertThat(likeCounts).isEqualTo(Map.of(film.getId(), 1));
+        assertThat(filmLikesDao.getLikeCount(film.getId())).isEqualTo(1);
+        assertThat(filmLikesDao.findLikes(List.of(film.getId()), List.of(user1.getId(), user2.getId())))
+                .isEqualTo(Map.of(film.getId(), IntBitmap.of(user2.getId())));
+    }
+
+    @Test
+    void findExistingIds() {
+        // when
+        IntBitmap filmIds = filmLikesDao.findExistingFilmIds(List.of(film.getId(), film.getId() + 100));
+        IntBitmap userIds = filmLikesDao.findExistingUserIds(List.of(user2.getId(), user2.getId() + 100));
+
+        // then
+        assertThat(filmIds).isEqualTo(IntBitmap.of(film.getId()));
+        assertThat(userIds).isEqualTo(IntBitmap.of(user2.getId()));
+        assertThat(filmLikesDao.findExistingUserIds(List.of())).isEqualTo(new IntBitmap());
+    }
+}
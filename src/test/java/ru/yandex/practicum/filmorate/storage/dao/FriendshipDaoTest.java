@@ -10,6 +10,7 @@ import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
@@ -55,6 +56,33 @@ class FriendshipDaoTest {
                 .isEqualTo(Collections.emptyList());
     }
 
+    @Test
+    void addFriendTwice() {
+        // when
+        friendshipDao.addFriend(user1.getId(), user2.getId());
+        friendshipDao.addFriend(user1.getId(), user2.getId());
+
+        // then
+        assertThat(friendshipDao.getFriends(user1.getId()))
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(user2));
+    }
+
+    @Test
+    void addFriendKeepsConfirmedStatus() {
+        // given
+        friendshipDao.addFriend(user1.getId(), user2.getId());
+        jdbcTemplate.update("UPDATE FRIENDSHIP SET FRIEND_STATUS_CONFIRM = TRUE WHERE USER_ID = ? AND FRIEND_ID = ?",
+                user1.getId(), user2.getId());
+
+        // when
+        friendshipDao.addFriend(user1.getId(), user2.getId());
+
+        // then
+        assertThat(jdbcTemplate.queryForObject("SELECT FRIEND_STATUS_CONFIRM FROM FRIENDSHIP " +
+                "WHERE USER_ID = ? AND FRIEND_ID = ?", Boolean.class, user1.getId(), user2.getId())).isTrue();
+    }
+
     @Test
     void removeFriend() {
         // given
@@ -108,4 +136,44 @@ class FriendshipDaoTest {
                 .usingRecursiveComparison()
                 .isEqualTo(List.of(mutualFriend));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getFriendsPage() {
+        // given
+        friendshipDao.addFriend(user1.getId(), mutualFriend.getId());
+        friendshipDao.addFriend(user1.getId(), user2.getId());
+
+        // when
+        List<User> firstPage = friendshipDao.getFriends(user1.getId(), 0, 1);
+        List<User> secondPage = friendshipDao.getFriends(user1.getId(), firstPage.get(0).getId(), 1);
+        List<User> thirdPage = friendshipDao.getFriends(user1.getId(), secondPage.get(0).getId(), 1);
+
+        // then
+        assertThat(firstPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(user2));
+        assertThat(secondPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(mutualFriend));
+        assertThat(thirdPage)
+                .usingRecursiveComparison()
+                .isEqualTo(Collections.emptyList());
+    }
+
+    @Test
+    void findAllFriendIds() {
+        // given
+        friendshipDao.addFriend(user1.getId(), user2.getId());
+        friendshipDao.addFriend(user1.getId(), mutualFriend.getId());
+        friendshipDao.addFriend(user2.getId(), mutualFriend.getId());
+
+        // when
+        Map<Integer, List<Integer>> friendIds = friendshipDao.findAllFriendIds();
+
+        // then
+        friendIds.values().forEach(ids -> ids.sort(Integer::compare));
+        assertThat(friendIds).isEqualTo(Map.of(
+                user1.getId(), List.of(user2.getId(), mutualFriend.getId()),
+                user2.getId(), List.of(mutualFriend.getId())));
+    }
+}
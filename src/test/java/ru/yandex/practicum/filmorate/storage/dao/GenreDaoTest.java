@@ -10,6 +10,7 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
 
 import java.util.List;
 
@@ -74,12 +75,15 @@ class GenreDaoTest {
     @Test
     void findGenresByFilmId() {
         // given
-        FilmDbStorage filmDbStorage = new FilmDbStorage(jdbcTemplate);
+        ReferenceDataRegistry referenceDataRegistry = new ReferenceDataRegistry(new MpaDao(jdbcTemplate), genreDao);
+        referenceDataRegistry.reload();
+        FilmDbStorage filmDbStorage = new FilmDbStorage(jdbcTemplate, referenceDataRegistry);
         Film film = new Film("film", "film", new Mpa(1, "G"),
                 "1990-01-01", 100);
         film.setGenres(genres);
 
         Film addedFilm = filmDbStorage.addFilm(film);
+        genreDao.updateFilmGenres(addedFilm.getId(), genres);
 
         // when
         List<Genre> filmGenres = genreDao.findGenresByFilmId(addedFilm.getId());
@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Перед первым выполнением каждого SQL-выражения запрашивает у H2 его план через {@code EXPLAIN}
+ * с теми же параметрами и запоминает план вместе с текущим шагом теста.
+ * Работает поверх транзакции теста, поэтому план строится по данным, созданным в тесте.
+ */
+class QueryPlanRecordingDataSource extends TransactionAwareDataSourceProxy {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "addBatch");
+
+    private final List<QueryPlan> plans = new ArrayList<>();
+    private String step;
+
+    QueryPlanRecordingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    /**
+     * Все следующие выражения до нового вызова относятся к шагу {@code step}; {@code null} отключает запись.
+     */
+    void step(String step) {
+        this.step = step;
+    }
+
+    List<QueryPlan> getPlans() {
+        return plans;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        Connection[] recording = new Connection[1];
+        recording[0] = proxy(Connection.class, connection, (method, args) -> {
+            Object result = method.invoke(connection, args);
+            if (method.getName().equals("prepareStatement")) {
+                return recordingStatement(recording[0], connection, (PreparedStatement) result, (String) args[0]);
+            }
+            if (method.getName().equals("createStatement")) {
+                return recordingStatement(recording[0], connection, (Statement) result);
+            }
+            return result;
+        });
+        return recording[0];
+    }
+
+    private PreparedStatement recordingStatement(Connection recording, Connection connection,
+                                                 PreparedStatement statement, String sql) {
+        Map<Integer, Object[]> parameters = new TreeMap<>();
+        Map<Integer, Method> setters = new HashMap<>();
+        boolean[] explained = {false};
+        return proxy(PreparedStatement.class, statement, (method, args) -> {
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return recording;
+            }
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                parameters.put((Integer) args[0], args);
+                setters.put((Integer) args[0], method);
+            } else if (EXECUTE_METHODS.contains(name) && (args == null || args.length == 0) && !explained[0]) {
+                explained[0] = true;
+                explain(connection, sql, parameters, setters);
+            }
+            return method.invoke(statement, args);
+        });
+    }
+
+    private Statement recordingStatement(Connection recording, Connection connection, Statement statement) {
+        return proxy(Statement.class, statement, (method, args) -> {
+            if (method.getName().equals("getConnection")) {
+                return recording;
+            }
+            if (EXECUTE_METHODS.contains(method.getName()) && args != null && args[0] instanceof String) {
+                explain(connection, (String) args[0], Map.of(), Map.of());
+            }
+            return method.invoke(statement, args);
+        });
+    }
+
+    private void explain(Connection connection, String sql, Map<Integer, Object[]> parameters,
+                         Map<Integer, Method> setters) throws SQLException, ReflectiveOperationException {
+        if (step == null) {
+            return;
+        }
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (Map.Entry<Integer, Object[]> parameter : parameters.entrySet()) {
+                setters.get(parameter.getKey()).invoke(explain, parameter.getValue());
+            }
+            try (ResultSet rs = explain.executeQuery()) {
+                rs.next();
+                plans.add(new QueryPlan(step, sql, rs.getString(1)));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Invocation invocation) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            // Spring сравнивает соединения при освобождении, поэтому обертка равна только самой себе
+            if (method.getName().equals("equals")) {
+                return proxy == args[0];
+            }
+            if (method.getName().equals("hashCode")) {
+                return System.identityHashCode(proxy);
+            }
+            try {
+                return invocation.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        });
+    }
+
+    private interface Invocation {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    static final class QueryPlan {
+
+        final String step;
+        final String sql;
+        final String plan;
+
+        private QueryPlan(String step, String sql, String plan) {
+            this.step = step;
+            this.sql = sql;
+            this.plan = plan;
+        }
+
+        @Override
+        public String toString() {
+            return step + ": " + plan;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataRegistry;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Проверяет планы H2 для всех запросов пакета dao: горячие запросы не должны читать таблицу целиком.
+ * Полный проход разрешен только запросам, которые по смыслу читают всю таблицу
+ * (загрузка кешей при старте, выгрузка, сверка счетчиков).
+ */
+@JdbcTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class QueryPlanTest {
+
+    private static final List<Class<?>> DAO_CLASSES = List.of(FilmDbStorage.class, FilmLikesDao.class,
+            FriendshipDao.class, GenreDao.class, MpaDao.class, UserDbStorage.class);
+    private static final Set<String> FULL_SCANS = Set.of(
+            "FilmDbStorage.getFilms()", "FilmDbStorage.streamFilms", "FilmLikesDao.findAllLikes",
+            "FilmLikesDao.getLikeCounts", "FilmLikesDao.reconcileLikeCounts", "FriendshipDao.findAllFriendIds",
+            "GenreDao.findAll", "MpaDao.findAll", "UserDbStorage.getUsers()", "UserDbStorage.streamUsers");
+    // комментарий H2 без условия поиска: полный проход по таблице или по индексу
+    private static final Pattern SCAN = Pattern.compile("/\\* [\\w.]+(\\.tableScan)? \\*/");
+    // первые строки в порядке индекса без сортировки, как у /films/popular, проходом не считаются
+    private static final Pattern TOP_BY_INDEX = Pattern.compile("(?s)FETCH FIRST .*/\\* index sorted \\*/");
+
+    private final JdbcTemplate jdbcTemplate;
+    private QueryPlanRecordingDataSource dataSource;
+    private FilmDbStorage filmDbStorage;
+    private FilmLikesDao filmLikesDao;
+    private FriendshipDao friendshipDao;
+    private GenreDao genreDao;
+    private MpaDao mpaDao;
+    private UserDbStorage userDbStorage;
+    private final Set<String> steps = new LinkedHashSet<>();
+    // id идут не с 1: последовательности не откатываются вместе с транзакциями других тестов
+    private final List<Integer> films = new ArrayList<>();
+    private final List<Integer> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new QueryPlanRecordingDataSource(jdbcTemplate.getDataSource());
+        JdbcTemplate recordingJdbcTemplate = new JdbcTemplate(dataSource);
+        ReferenceDataRegistry referenceDataRegistry = new ReferenceDataRegistry(new MpaDao(jdbcTemplate),
+                new GenreDao(jdbcTemplate));
+        referenceDataRegistry.reload();
+        filmDbStorage = new FilmDbStorage(recordingJdbcTemplate, referenceDataRegistry);
+        filmLikesDao = new FilmLikesDao(recordingJdbcTemplate);
+        friendshipDao = new FriendshipDao(recordingJdbcTemplate);
+        genreDao = new GenreDao(recordingJdbcTemplate);
+        mpaDao = new MpaDao(recordingJdbcTemplate);
+        userDbStorage = new UserDbStorage(recordingJdbcTemplate);
+
+        // данных столько, чтобы для H2 поиск по индексу был дешевле полного прохода
+        for (int i = 0; i < 50; i++) {
+            users.add(userDbStorage.createUser(new User("user" + i + "@mail.ru", "user" + i, "User " + i,
+                    "1990-01-01")).getId());
+            Film film = filmDbStorage.addFilm(new Film("film" + i, "description", new Mpa(1 + i % 5, null),
+                    "2000-01-01", 100));
+            films.add(film.getId());
+            genreDao.updateFilmGenres(film.getId(), List.of(new Genre(1 + i % 6, null)));
+        }
+        for (int i = 0; i < 50; i++) {
+            for (int j = 1; j <= 5; j++) {
+                filmLikesDao.addLike(film((i + j) % 50), user(i));
+                friendshipDao.addFriend(user(i), user((i + j * 7) % 50));
+            }
+        }
+    }
+
+    @Test
+    void hotQueriesUseIndexes() {
+        // when
+        step("FilmDbStorage.addFilm", () -> films.add(filmDbStorage.addFilm(new Film("new", "description",
+                new Mpa(1, null), "2000-01-01", 100)).getId()));
+        step("FilmDbStorage.updateFilm", () -> filmDbStorage.updateFilm(filmDbStorage.getFilm(film(1))));
+        step("FilmDbStorage.getFilms()", () -> filmDbStorage.getFilms());
+        step("FilmDbStorage.getFilms", () -> filmDbStorage.getFilms(film(10), 5));
+        step("FilmDbStorage.streamFilms", () -> filmDbStorage.streamFilms(10, chunk -> {
+        }));
+        step("FilmDbStorage.getFilm", () -> filmDbStorage.getFilm(film(3)));
+        step("FilmDbStorage.getFilmVersion", () -> filmDbStorage.getFilmVersion(film(3)));
+        step("FilmDbStorage.getFilmsByIds", () -> filmDbStorage.getFilmsByIds(List.of(film(3), film(4))));
+        step("FilmDbStorage.removeFilm", () -> filmDbStorage.removeFilm(film(50)));
+
+        step("FilmLikesDao.addLike", () -> filmLikesDao.addLike(film(40), user(0)));
+        step("FilmLikesDao.removeLike", () -> filmLikesDao.removeLike(film(40), user(0)));
+        step("FilmLikesDao.findLikesByFilmId", () -> filmLikesDao.findLikesByFilmId(film(3)));
+        step("FilmLikesDao.findLikesByFilmIds", () -> filmLikesDao.findLikesByFilmIds(List.of(film(3), film(4))));
+        step("FilmLikesDao.findAllLikes", () -> filmLikesDao.findAllLikes());
+        step("FilmLikesDao.findFilmIdsByUserId", () -> filmLikesDao.findFilmIdsByUserId(user(1)));
+        step("FilmLikesDao.updateFilmLikes", () -> filmLikesDao.updateFilmLikes(film(5), List.of(user(1), user(2))));
+        step("FilmLikesDao.findExistingFilmIds", () -> filmLikesDao.findExistingFilmIds(List.of(film(3), -1)));
+        step("FilmLikesDao.findExistingUserIds", () -> filmLikesDao.findExistingUserIds(List.of(user(3), -1)));
+        step("FilmLikesDao.findLikes", () -> filmLikesDao.findLikes(List.of(film(3), film(4)),
+                List.of(user(1), user(2))));
+        step("FilmLikesDao.applyLikes", () -> filmLikesDao.applyLikes(List.of(
+                new LikeOperation(film(6), user(1), LikeOperation.Op.ADD),
+                new LikeOperation(film(7), user(2), LikeOperation.Op.REMOVE))));
+        step("FilmLikesDao.getLikeCounts", () -> filmLikesDao.getLikeCounts());
+        step("FilmLikesDao.getLikeCount", () -> filmLikesDao.getLikeCount(film(3)));
+        step("FilmLikesDao.reconcileLikeCounts", () -> filmLikesDao.reconcileLikeCounts());
+
+        step("FriendshipDao.addFriend", () -> friendshipDao.addFriend(user(1), user(40)));
+        step("FriendshipDao.removeFriend", () -> friendshipDao.removeFriend(user(1), user(40)));
+        step("FriendshipDao.findAllFriendIds", () -> friendshipDao.findAllFriendIds());
+        step("FriendshipDao.getFriends", () -> {
+            friendshipDao.getFriends(user(1));
+            friendshipDao.getFriends(user(1), user(10), 5);
+        });
+        step("FriendshipDao.getMutualFriends", () -> friendshipDao.getMutualFriends(user(1), user(2)));
+
+        step("GenreDao.findAll", () -> genreDao.findAll());
+        step("GenreDao.findGenreById", () -> genreDao.findGenreById(1));
+        step("GenreDao.findGenresByFilmId", () -> genreDao.findGenresByFilmId(film(3)));
+        step("GenreDao.findGenreIdsByFilmIds", () -> genreDao.findGenreIdsByFilmIds(List.of(film(3), film(4))));
+        step("GenreDao.updateFilmGenres", () -> genreDao.updateFilmGenres(film(3), List.of(new Genre(2, null))));
+        step("GenreDao.replaceFilmGenres", () -> genreDao.replaceFilmGenres(film(3), List.of(new Genre(4, null))));
+
+        step("MpaDao.findAll", () -> mpaDao.findAll());
+        step("MpaDao.findMpaById", () -> mpaDao.findMpaById(1));
+
+        step("UserDbStorage.createUser", () -> users.add(userDbStorage.createUser(new User("new@mail.ru", "new", "New",
+                "1990-01-01")).getId()));
+        step("UserDbStorage.updateUser", () -> userDbStorage.updateUser(userDbStorage.getUser(user(2))));
+        step("UserDbStorage.getUsers()", () -> userDbStorage.getUsers());
+        step("UserDbStorage.getUsers", () -> userDbStorage.getUsers(user(10), 5));
+        step("UserDbStorage.streamUsers", () -> userDbStorage.streamUsers(10, chunk -> {
+        }));
+        step("UserDbStorage.getUser", () -> userDbStorage.getUser(user(3)));
+        step("UserDbStorage.getUserVersion", () -> userDbStorage.getUserVersion(user(3)));
+        step("UserDbStorage.getUsersByIds", () -> userDbStorage.getUsersByIds(new int[]{user(3), user(4)}));
+        step("UserDbStorage.deleteUser", () -> userDbStorage.deleteUser(user(50)));
+
+        // then
+        assertEquals(daoMethods(), steps.stream().map(step -> step.replace("()", ""))
+                .collect(Collectors.toCollection(TreeSet::new)), "Не для всех методов DAO проверен план запроса.");
+        List<String> scans = dataSource.getPlans().stream()
+                .filter(plan -> !FULL_SCANS.contains(plan.step))
+                .filter(plan -> SCAN.matcher(plan.plan).find() && !TOP_BY_INDEX.matcher(plan.plan).find())
+                .map(QueryPlanRecordingDataSource.QueryPlan::toString)
+                .collect(Collectors.toList());
+        assertTrue(scans.isEmpty(), "Запросы читают таблицу целиком:\n" + String.join("\n", scans));
+    }
+
+    private void step(String name, Runnable call) {
+        steps.add(name);
+        dataSource.step(name);
+        call.run();
+        dataSource.step(null);
+    }
+
+    private int film(int index) {
+        return films.get(index);
+    }
+
+    private int user(int index) {
+        return users.get(index);
+    }
+
+    private static Set<String> daoMethods() {
+        Set<String> methods = new TreeSet<>();
+        for (Class<?> dao : DAO_CLASSES) {
+            for (Method method : dao.getDeclaredMethods()) {
+                if (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())
+                        && !method.isSynthetic()) {
+                    methods.add(dao.getSimpleName() + "." + method.getName());
+                }
+            }
+        }
+        return methods;
+    }
+}
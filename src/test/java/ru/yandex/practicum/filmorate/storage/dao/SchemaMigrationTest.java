@@ -0,0 +1,91 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+/**
+ * Миграции V2 и V3 на базе, созданной до первичного ключа FRIENDSHIP и колонок версий.
+ */
+class SchemaMigrationTest {
+
+    private static final String MIGRATION = "migration/V2__friendship_pk_and_indexes.sql";
+    private static final String VERSION_MIGRATION = "migration/V3__version_columns.sql";
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migration;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        populate(new ClassPathResource("schema.sql"));
+        jdbcTemplate.update("INSERT INTO USER_ACCOUNT (EMAIL, LOGIN, BIRTHDAY) VALUES " +
+                "('user1@mail.ru', 'user1', '1990-01-01'), ('user2@mail.ru', 'user2', '1990-01-01')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.execute("SHUTDOWN");
+    }
+
+    @Test
+    void duplicatesAreMergedBeforePrimaryKey() {
+        // given
+        jdbcTemplate.update("INSERT INTO FRIENDSHIP (USER_ID, FRIEND_ID, FRIEND_STATUS_CONFIRM) VALUES " +
+                "(1, 2, false), (1, 2, true), (1, 2, false), (2, 1, false)");
+
+        // when
+        populate(new ClassPathResource(MIGRATION));
+        populate(new ClassPathResource(MIGRATION));
+
+        // then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FRIENDSHIP", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT FRIEND_STATUS_CONFIRM FROM FRIENDSHIP " +
+                "WHERE USER_ID = 1 AND FRIEND_ID = 2", Boolean.class)).isTrue();
+        assertThatThrownBy(() -> jdbcTemplate.update("INSERT INTO FRIENDSHIP VALUES (2, 1, false)"))
+                .isInstanceOf(DuplicateKeyException.class);
+    }
+
+    @Test
+    void secondaryIndexesAreCreated() {
+        // when
+        populate(new ClassPathResource(MIGRATION));
+
+        // then
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.INDEXES WHERE INDEX_NAME IN " +
+                "('FRIENDSHIP_FRIEND_ID_IDX', 'FILM_LIKES_USER_ID_IDX', 'FILM_GENRE_GENRE_ID_IDX', 'FILM_MPA_ID_IDX')",
+                Integer.class)).isEqualTo(4);
+    }
+
+    @Test
+    void versionColumnsStartAtZero() {
+        // given
+        jdbcTemplate.update("INSERT INTO FILM (NAME, RELEASE_DATE, DURATION) VALUES ('film', '2000-01-01', 100)");
+
+        // when
+        populate(new ClassPathResource(VERSION_MIGRATION));
+        populate(new ClassPathResource(VERSION_MIGRATION));
+
+        // then
+        assertThat(jdbcTemplate.queryForObject("SELECT VERSION FROM FILM", Integer.class)).isEqualTo(0);
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(VERSION) FROM USER_ACCOUNT", Integer.class)).isEqualTo(0);
+    }
+
+    private void populate(ClassPathResource script) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(script);
+        populator.setSqlScriptEncoding(StandardCharsets.UTF_8.name());
+        populator.execute(dataSource);
+    }
+}
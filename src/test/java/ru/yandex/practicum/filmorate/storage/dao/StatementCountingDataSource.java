@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage.dao;
+
+import org.springframework.jdbc.datasource.TransactionAwareDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Считает SQL-выражения, подготовленные через источник данных.
+ * Работает поверх транзакции теста, поэтому данные, созданные в тесте, остаются видны.
+ */
+class StatementCountingDataSource extends TransactionAwareDataSourceProxy {
+
+    private final AtomicInteger statements = new AtomicInteger();
+
+    StatementCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection connection = super.getConnection();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    String name = method.getName();
+                    if (name.equals("prepareStatement") || name.equals("prepareCall")
+                            || name.equals("createStatement")) {
+                        statements.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    int getStatements() {
+        return statements.get();
+    }
+
+    void reset() {
+        statements.set(0);
+    }
+}
@@ -63,6 +63,20 @@ class UserDbStorageTest {
                 .isEqualTo(newUser);
     }
 
+    @Test
+    void updateUserBumpsVersion() {
+        // given
+        User user = userDbStorage.createUser(new User("user@email.ru", "vanya123", "Ivan Petrov",
+                "1990-01-01"));
+
+        // when
+        userDbStorage.updateUser(user);
+
+        // then
+        assertThat(userDbStorage.getUserVersion(user.getId())).isEqualTo(1);
+        assertThat(userDbStorage.getUser(user.getId()).getVersion()).isEqualTo(1);
+    }
+
     @Test
     void updateUserNotFound() {
         // given
@@ -122,4 +136,45 @@ class UserDbStorageTest {
                 .usingRecursiveComparison()
                 .isEqualTo(user);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUsersPage() {
+        // given
+        User user1 = userDbStorage.createUser(new User("user1@email.ru", "user1", "user1",
+                "1984-09-13"));
+        User user2 = userDbStorage.createUser(new User("user2@email.ru", "user2", "user2",
+                "1984-09-13"));
+        User user3 = userDbStorage.createUser(new User("user3@email.ru", "user3", "user3",
+                "1984-09-13"));
+
+        // when
+        List<User> firstPage = userDbStorage.getUsers(0, 2);
+        List<User> secondPage = userDbStorage.getUsers(user2.getId(), 2);
+
+        // then
+        assertThat(firstPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(user1, user2));
+        assertThat(secondPage)
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(user3));
+    }
+
+    @Test
+    void getUsersByIds() {
+        // given
+        User user1 = userDbStorage.createUser(new User("user1@email.ru", "user1", "user1",
+                "2000-01-01"));
+        User user2 = userDbStorage.createUser(new User("user2@email.ru", "user2", "user2",
+                "2000-01-01"));
+
+        // when
+        List<User> users = userDbStorage.getUsersByIds(new int[]{user2.getId(), 9999, user1.getId()});
+
+        // then
+        assertThat(users)
+                .isNotNull()
+                .usingRecursiveComparison()
+                .isEqualTo(List.of(user2, user1));
+    }
+}
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class InMemoryFilmStorageTest {
+
+    private static final int THREADS = 8;
+
+    private InMemoryFilmStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryFilmStorage();
+    }
+
+    @Test
+    void addUpdateRemoveFilm() {
+        // given
+        Film film = storage.addFilm(newFilm("name"));
+        Film newFilm = newFilm("newName");
+        newFilm.setId(film.getId());
+
+        // when
+        storage.updateFilm(newFilm);
+
+        // then
+        assertThat(storage.getFilm(film.getId()).getName()).isEqualTo("newName");
+        storage.removeFilm(film.getId());
+        assertThatThrownBy(() -> storage.getFilm(film.getId()))
+                .isInstanceOf(FilmNotFoundException.class);
+        assertThatThrownBy(() -> storage.updateFilm(newFilm))
+                .isInstanceOf(FilmNotFoundException.class);
+    }
+
+    @Test
+    void getFilmsSnapshotIsReusedUntilWrite() {
+        // given
+        storage.addFilm(newFilm("name1"));
+        storage.addFilm(newFilm("name2"));
+
+        // when
+        List<Film> first = storage.getFilms();
+        List<Film> second = storage.getFilms();
+        storage.addFilm(newFilm("name3"));
+        List<Film> third = storage.getFilms();
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(first.size()).isEqualTo(2);
+        assertThat(third.size()).isEqualTo(3);
+        assertThatThrownBy(() -> first.add(newFilm("name4")))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void concurrentAddFilms() throws Exception {
+        // given
+        int filmsPerThread = 2_000;
+
+        // when
+        runConcurrently(thread -> {
+            for (int i = 0; i < filmsPerThread; i++) {
+                storage.addFilm(newFilm("film" + thread + "-" + i));
+            }
+        });
+
+        // then
+        List<Film> films = storage.getFilms();
+        assertThat(films.size()).isEqualTo(THREADS * filmsPerThread);
+        for (int i = 0; i < films.size(); i++) {
+            assertThat(films.get(i).getId()).isEqualTo(i + 1);
+        }
+    }
+
+    @Test
+    void concurrentUpdateAndRemoveFilms() throws Exception {
+        // given
+        int filmCount = 2_000;
+        for (int i = 0; i < filmCount; i++) {
+            storage.addFilm(newFilm("film" + i));
+        }
+        AtomicInteger removed = new AtomicInteger();
+
+        // when
+        // половина потоков удаляет фильмы, вторая половина пытается их обновить
+        runConcurrently(thread -> {
+            for (int id = 1; id <= filmCount; id++) {
+                if (thread % 2 == 0) {
+                    try {
+                        storage.removeFilm(id);
+                        removed.incrementAndGet();
+                    } catch (FilmNotFoundException ignored) {
+                        // фильм уже удалил другой поток
+                    }
+                } else {
+                    Film film = newFilm("updated" + thread);
+                    film.setId(id);
+                    try {
+                        storage.updateFilm(film);
+                    } catch (FilmNotFoundException ignored) {
+                        // фильм уже удален
+                    }
+                }
+            }
+        });
+
+        // then
+        assertThat(removed.get()).isEqualTo(filmCount);
+        assertThat(storage.getFilms().size()).isEqualTo(0);
+        assertThat(storage.getFilms(0, 10).size()).isEqualTo(0);
+    }
+
+    private void runConcurrently(IntConsumerWithException task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.accept(threadNumber);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Film newFilm(String name) {
+        return new Film(name, "description", new Mpa(1, "G"), "2000-01-01", 100);
+    }
+
+    private interface IntConsumerWithException {
+        void accept(int value) throws Exception;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.storage.memory;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
+
+class InMemoryUserStorageTest {
+
+    private static final int THREADS = 8;
+
+    private InMemoryUserStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryUserStorage();
+    }
+
+    @Test
+    void createUserWithoutName() {
+        // when
+        User user = storage.createUser(new User("user@email.ru", "vanya123", "", "1990-01-01"));
+
+        // then
+        assertThat(storage.getUser(user.getId()).getName()).isEqualTo("vanya123");
+    }
+
+    @Test
+    void concurrentCreateUpdateDeleteUsers() throws Exception {
+        // given
+        int usersPerThread = 1_000;
+        AtomicInteger deleted = new AtomicInteger();
+
+        // when
+        // каждый поток создает своих пользователей, обновляет их и удаляет каждого второго
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Integer>>> futures = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    List<Integer> kept = new ArrayList<>();
+                    for (int i = 0; i < usersPerThread; i++) {
+                        User user = storage.createUser(newUser(threadNumber, i));
+                        user.setName("updated");
+                        storage.updateUser(user);
+                        if (i % 2 == 0) {
+                            storage.deleteUser(user.getId());
+                            deleted.incrementAndGet();
+                        } else {
+                            kept.add(user.getId());
+                        }
+                    }
+                    return kept;
+                }));
+            }
+            start.countDown();
+
+            List<Integer> keptIds = new ArrayList<>();
+            for (Future<List<Integer>> future : futures) {
+                keptIds.addAll(future.get(30, TimeUnit.SECONDS));
+            }
+
+            // then
+            List<User> users = storage.getUsers();
+            assertThat(deleted.get()).isEqualTo(THREADS * usersPerThread / 2);
+            assertThat(users.size()).isEqualTo(keptIds.size());
+            for (int i = 1; i < users.size(); i++) {
+                assertThat(users.get(i).getId()).isGreaterThan(users.get(i - 1).getId());
+            }
+            for (User user : users) {
+                assertThat(user.getName()).isEqualTo("updated");
+            }
+            for (Integer id : keptIds) {
+                assertThat(storage.getUser(id).getId()).isEqualTo(id);
+            }
+            assertThatThrownBy(() -> storage.deleteUser(THREADS * usersPerThread + 1))
+                    .isInstanceOf(UserNotFoundException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private User newUser(int thread, int number) {
+        return new User("user" + thread + "-" + number + "@email.ru", "login" + thread + "-" + number,
+                "name", "1990-01-01");
+    }
+}
@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+
+class IntBitmapTest {
+
+    @Test
+    void addContainsRemove() {
+        // given
+        IntBitmap bitmap = IntBitmap.of(5, 1, 70_000, 5);
+
+        // when
+        boolean removed = bitmap.remove(1);
+        boolean removedAgain = bitmap.remove(1);
+
+        // then
+        assertThat(removed).isTrue();
+        assertThat(removedAgain).isFalse();
+        assertThat(bitmap.size()).isEqualTo(2);
+        assertThat(bitmap.contains(5)).isTrue();
+        assertThat(bitmap.contains(1)).isFalse();
+        assertThat(bitmap.asList()).isEqualTo(List.of(5, 70_000));
+    }
+
+    @Test
+    void sameAsTreeSetOnRandomOperations() {
+        // given
+        Random random = new Random(42);
+        IntBitmap bitmap = new IntBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+
+        // when
+        // в первом блоке значений больше 4096, поэтому он переходит в битовую карту и обратно
+        for (int i = 0; i < 200_000; i++) {
+            int value = random.nextInt(i < 100_000 ? 10_000 : 200_000);
+            if (random.nextInt(3) == 0) {
+                assertThat(bitmap.remove(value)).isEqualTo(expected.remove(value));
+            } else {
+                assertThat(bitmap.add(value)).isEqualTo(expected.add(value));
+            }
+        }
+
+        // then
+        assertThat(bitmap.size()).isEqualTo(expected.size());
+        assertThat(new ArrayList<>(bitmap)).isEqualTo(new ArrayList<>(expected));
+        assertThat(bitmap.select(expected.size() / 2))
+                .isEqualTo(new ArrayList<>(expected).get(expected.size() / 2));
+        assertThat(bitmap).isEqualTo(new IntBitmap(expected));
+        assertThat(bitmap.hashCode()).isEqualTo(expected.hashCode());
+    }
+
+    @Test
+    void iteratorRemove() {
+        // given
+        IntBitmap bitmap = new IntBitmap();
+        for (int i = 0; i < 10_000; i++) {
+            bitmap.add(i);
+        }
+        bitmap.add(100_000);
+
+        // when
+        bitmap.removeIf(value -> value % 2 == 0);
+
+        // then
+        assertThat(bitmap.size()).isEqualTo(5_000);
+        assertThat(bitmap.contains(1)).isTrue();
+        assertThat(bitmap.contains(100_000)).isFalse();
+        assertThat(bitmap.toIntArray()[4_999]).isEqualTo(9_999);
+    }
+
+    @Test
+    void filmLikesJsonIsUnchanged() throws Exception {
+        // given
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        Film film = new Film("name", "description", "2000-01-01", 100);
+        film.addLike(3);
+        film.addLike(1);
+
+        // when
+        String json = objectMapper.writeValueAsString(film);
+        Film filmFromJson = objectMapper.readValue(json, Film.class);
+
+        // then
+        assertThat(json).contains("\"likes\":[1,3]");
+        assertThat(json).doesNotContain("likeCount");
+        assertThat(filmFromJson.getLikes()).isEqualTo(List.of(1, 3));
+        assertThat(filmFromJson.getLikeCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import ru.yandex.practicum.filmorate.config.VirtualThreadsConfig;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class VirtualThreadsTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadsConfig.class);
+
+    @Test
+    void executorRunsTasksInVirtualThreads() throws Exception {
+        assumeTrue(VirtualThreads.isSupported(), "нужна JDK 21");
+        // given
+        ExecutorService executor = VirtualThreads.newExecutor("test-");
+
+        // when
+        Thread thread = executor.submit(Thread::currentThread).get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // then
+        assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        assertThat(thread.getName()).isEqualTo("test-0");
+    }
+
+    @Test
+    void oldJdkFailsWithClearMessage() {
+        assumeFalse(VirtualThreads.isSupported(), "проверка для JDK до 21");
+        // when / then
+        assertThatThrownBy(() -> VirtualThreads.newExecutor("test-"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("начиная с Java 21");
+    }
+
+    @Test
+    void modeIsOffByDefault() {
+        // when / then
+        contextRunner.run(context -> assertThat(context.getBeanNamesForType(VirtualThreadsConfig.class).length)
+                .isEqualTo(0));
+    }
+
+    @Test
+    void enabledModeDoesNotStartOnOldJdk() {
+        assumeFalse(VirtualThreads.isSupported(), "проверка для JDK до 21");
+        // when / then
+        contextRunner.withPropertyValues("filmorate.virtual-threads.enabled=true")
+                .run(context -> assertThat(context.getStartupFailure())
+                        .hasRootCauseMessage("Виртуальные потоки доступны начиная с Java 21, приложение запущено на Java "
+                                + Runtime.version().feature()));
+    }
+}